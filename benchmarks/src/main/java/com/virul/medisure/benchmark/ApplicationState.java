@@ -0,0 +1,47 @@
+package com.virul.medisure.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The application context and seeded data set shared by all threads of a benchmark.
+ * Every benchmark runs in its own fork, so each one starts from a freshly seeded database.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    @Param("1000")
+    public int policyHolders;
+
+    @Param("20")
+    public int doctors;
+
+    @Param("42")
+    public long seed;
+
+    public ConfigurableApplicationContext context;
+    public DataGenerator.Dataset dataset;
+    public TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkContext.start();
+        dataset = new DataGenerator(context).generate(new DataGenerator.Size(policyHolders, doctors, 5, 3, 1, 2, 1), seed);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
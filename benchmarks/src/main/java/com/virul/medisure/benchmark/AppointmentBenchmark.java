@@ -0,0 +1,108 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.dto.AppointmentRequest;
+import com.virul.medisure.model.Appointment;
+import com.virul.medisure.service.AppointmentService;
+import com.virul.medisure.service.DoctorScheduleChangedEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking appointments into free slots of the default schedule, walking doctor by doctor
+ * through the slots of each weekday past the seeded appointments. The bookings are removed
+ * before every iteration so the walk starts over on the same days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class AppointmentBenchmark {
+
+    // The default schedule: 09:00 to 17:00 in 30 minute slots
+    private static final int SLOTS_PER_DAY = 16;
+
+    private ApplicationContext context;
+    private AppointmentService appointmentService;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private List<Long> doctorIds;
+    private List<DataGenerator.Holder> holders;
+    private LocalDate firstDate;
+
+    private LocalDate date;
+    private int doctor;
+    private int slot;
+    private int booked;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) {
+        context = app.context;
+        appointmentService = app.bean(AppointmentService.class);
+        transactionTemplate = app.transactionTemplate;
+        jdbcTemplate = app.bean(JdbcTemplate.class);
+        doctorIds = app.dataset.doctorIds();
+        holders = app.dataset.holders();
+        firstDate = LocalDate.now().plusDays(DataGenerator.APPOINTMENT_WINDOW_DAYS);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        jdbcTemplate.update("DELETE FROM appointments WHERE appointment_date >= ?", firstDate);
+        doctorIds.forEach(id -> context.publishEvent(new DoctorScheduleChangedEvent(id)));
+        date = nextWeekday(firstDate.minusDays(1));
+        doctor = 0;
+        slot = 0;
+    }
+
+    @Benchmark
+    public Appointment bookAppointment() {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setDoctorId(doctorIds.get(doctor));
+        request.setAppointmentDate(date);
+        request.setAppointmentTime(LocalTime.of(9, 0).plusMinutes(30L * slot));
+        request.setReason("Benchmark appointment");
+        Long holderId = holders.get(booked++ % holders.size()).id();
+        advance();
+        return transactionTemplate.execute(tx -> appointmentService.bookAppointment(holderId, request));
+    }
+
+    private void advance() {
+        if (++slot < SLOTS_PER_DAY) {
+            return;
+        }
+        slot = 0;
+        if (++doctor < doctorIds.size()) {
+            return;
+        }
+        doctor = 0;
+        date = nextWeekday(date);
+    }
+
+    private static LocalDate nextWeekday(LocalDate date) {
+        LocalDate next = date.plusDays(1);
+        while (next.getDayOfWeek() == DayOfWeek.SATURDAY || next.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            next = next.plusDays(1);
+        }
+        return next;
+    }
+}
@@ -0,0 +1,49 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.MedisureApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Starts the real application context for a benchmark: configured from benchmark.properties,
+ * on an in-memory H2 database of its own and with documents stored in a temporary directory.
+ * Command line style arguments override the configuration, e.g.
+ * --spring.datasource.url=jdbc:h2:file:/tmp/medisure to work on a file database.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return start(context -> {
+        }, args);
+    }
+
+    /**
+     * Start with an initializer that can add beans of its own, e.g. for instrumentation
+     */
+    public static ConfigurableApplicationContext start(
+            ApplicationContextInitializer<ConfigurableApplicationContext> initializer, String... args) {
+        Path storageRoot;
+        try {
+            storageRoot = Files.createTempDirectory("medisure-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SpringApplicationBuilder(MedisureApplication.class)
+                .properties(
+                        // Only benchmark.properties, never an application.properties on the classpath
+                        "spring.config.name=benchmark",
+                        "storage.filesystem.root=" + storageRoot)
+                .initializers(initializer)
+                .logStartupInfo(false)
+                .run(args);
+    }
+}
@@ -0,0 +1,61 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.dto.ClaimRequest;
+import com.virul.medisure.model.Claim;
+import com.virul.medisure.service.ClaimService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submitting a claim, taking the policy holders of the data set in turn. Each call runs in a
+ * transaction the way a request does with the session held open for the view.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ClaimBenchmark {
+
+    private ClaimService claimService;
+    private TransactionTemplate transactionTemplate;
+    private List<DataGenerator.Holder> holders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) {
+        claimService = app.bean(ClaimService.class);
+        transactionTemplate = app.transactionTemplate;
+        holders = app.dataset.holders();
+    }
+
+    @Benchmark
+    public Claim submitClaim() {
+        DataGenerator.Holder holder = holders.get(next++ % holders.size());
+        ClaimRequest request = new ClaimRequest();
+        request.setPolicyId(holder.policyId());
+        request.setClaimDate(LocalDate.now());
+        request.setTreatmentDate(LocalDate.now().minusDays(2));
+        request.setAmountClaimed(new BigDecimal("1250.00"));
+        request.setDescription("Benchmark claim");
+        request.setMedicalDiagnosis("Benchmark diagnosis");
+        request.setHospitalName("City General Hospital");
+        return transactionTemplate.execute(tx -> claimService.submitClaim(holder.id(), request));
+    }
+}
@@ -0,0 +1,81 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.controller.DashboardController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the model of the role dashboards, i.e. the aggregation behind each page without
+ * the template rendering. Users are taken from the data set in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DashboardBenchmark {
+
+    private DashboardController dashboardController;
+    private TransactionTemplate readOnly;
+    private List<DataGenerator.Holder> holders;
+    private List<String> doctorEmails;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) {
+        dashboardController = app.bean(DashboardController.class);
+        readOnly = new TransactionTemplate(app.transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        holders = app.dataset.holders();
+        doctorEmails = app.dataset.doctorEmails();
+    }
+
+    @Benchmark
+    public ExtendedModelMap policyHolderDashboard() {
+        return render("/policyholder/dashboard", holders.get(next++ % holders.size()).email(),
+                (model, request, auth) -> dashboardController.policyHolderDashboard(model, request, auth));
+    }
+
+    @Benchmark
+    public ExtendedModelMap doctorDashboard() {
+        return render("/doctor/dashboard", doctorEmails.get(next++ % doctorEmails.size()),
+                (model, request, auth) -> dashboardController.doctorDashboard(model, request, auth));
+    }
+
+    @Benchmark
+    public ExtendedModelMap agentDashboard() {
+        return render("/agent/dashboard", "agent@medicare.com",
+                (model, request, auth) -> dashboardController.agentDashboard(model, request, auth));
+    }
+
+    private ExtendedModelMap render(String path, String email, Page page) {
+        ExtendedModelMap model = new ExtendedModelMap();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        Authentication authentication = new TestingAuthenticationToken(email, null);
+        readOnly.executeWithoutResult(tx -> page.render(model, request, authentication));
+        return model;
+    }
+
+    @FunctionalInterface
+    private interface Page {
+        String render(ExtendedModelMap model, MockHttpServletRequest request, Authentication authentication);
+    }
+}
@@ -0,0 +1,366 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.model.Appointment;
+import com.virul.medisure.model.Claim;
+import com.virul.medisure.model.ClaimDocument;
+import com.virul.medisure.model.Doctor;
+import com.virul.medisure.model.Policy;
+import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.model.Ticket;
+import com.virul.medisure.model.User;
+import com.virul.medisure.repository.AppointmentRepository;
+import com.virul.medisure.repository.ClaimDocumentRepository;
+import com.virul.medisure.repository.ClaimRepository;
+import com.virul.medisure.repository.DoctorRepository;
+import com.virul.medisure.repository.PolicyHolderRepository;
+import com.virul.medisure.repository.PolicyRepository;
+import com.virul.medisure.repository.TicketRepository;
+import com.virul.medisure.repository.UserRepository;
+import com.virul.medisure.service.DoctorSlotIndex;
+import com.virul.medisure.service.FileStorageService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills the database of a running context with a reproducible data set: staff and plain users
+ * of every role, policy holders on the policies created at startup, doctors, claims with their
+ * documents, appointments and support tickets. Everything is drawn from a
+ * Random with a fixed seed, so two runs with the same size and seed measure the same data.
+ * Run on its own to seed a database for manual or load testing:
+ * <pre>
+ * java -cp ... com.virul.medisure.benchmark.DataGenerator \
+ *     --spring.datasource.url=jdbc:h2:file:/tmp/medisure --spring.jpa.hibernate.ddl-auto=update \
+ *     --generator.policy-holders=10000 --generator.doctors=50 --generator.seed=42
+ * </pre>
+ * or, against a local Postgres:
+ * <pre>
+ *     --spring.datasource.url=jdbc:postgresql://localhost:5432/medisure --spring.datasource.username=...
+ * </pre>
+ * Every generated user can log in with {@link #PASSWORD}.
+ */
+public class DataGenerator {
+
+    public static final String PASSWORD = "bench1234";
+
+    // Seeded appointments lie within this many days around today; benchmarks book beyond it
+    public static final int APPOINTMENT_WINDOW_DAYS = 60;
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String[] SPECIALIZATIONS = {
+            "Cardiologist", "Pediatrician", "Dermatologist", "Orthopedic Surgeon", "Neurologist",
+            "General Practitioner", "Ophthalmologist", "Psychiatrist"};
+
+    private static final String[] HOSPITALS = {
+            "City General Hospital", "Lakeside Medical Centre", "St. Mary's Hospital", "Northern Clinic"};
+
+    private static final String CLAIM_DOCUMENTS_FOLDER = "claim-documents";
+
+    // Small but real PDF, stored once per generated claim document
+    private static final byte[] DOCUMENT = ("%PDF-1.4\n1 0 obj << /Type /Catalog >> endobj\n"
+            + "trailer << /Root 1 0 R >>\n%%EOF\n").getBytes();
+
+    private final UserRepository userRepository;
+    private final PolicyRepository policyRepository;
+    private final PolicyHolderRepository policyHolderRepository;
+    private final DoctorRepository doctorRepository;
+    private final ClaimRepository claimRepository;
+    private final ClaimDocumentRepository claimDocumentRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final TicketRepository ticketRepository;
+    private final FileStorageService fileStorageService;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+
+    public DataGenerator(ApplicationContext context) {
+        this.userRepository = context.getBean(UserRepository.class);
+        this.policyRepository = context.getBean(PolicyRepository.class);
+        this.policyHolderRepository = context.getBean(PolicyHolderRepository.class);
+        this.doctorRepository = context.getBean(DoctorRepository.class);
+        this.claimRepository = context.getBean(ClaimRepository.class);
+        this.claimDocumentRepository = context.getBean(ClaimDocumentRepository.class);
+        this.appointmentRepository = context.getBean(AppointmentRepository.class);
+        this.ticketRepository = context.getBean(TicketRepository.class);
+        this.fileStorageService = context.getBean(FileStorageService.class);
+        this.passwordEncoder = context.getBean(PasswordEncoder.class);
+        this.transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start(args)) {
+            Environment environment = context.getEnvironment();
+            Size size = Size.from(environment);
+            long seed = environment.getProperty("generator.seed", Long.class, 42L);
+            Dataset dataset = new DataGenerator(context).generate(size, seed);
+            System.out.println("Generated " + dataset.holders().size() + " policy holders and "
+                    + dataset.doctorIds().size() + " doctors with seed " + seed);
+        }
+    }
+
+    public Dataset generate(Size size, long seed) {
+        Random random = new Random(seed);
+        String password = passwordEncoder.encode(PASSWORD);
+        List<Policy> policies = policyRepository.findAll();
+        // Runs of the generator on one database must not collide on unique emails
+        String batch = Long.toString(seed, 36) + "-" + Long.toString(System.nanoTime(), 36);
+
+        // Every role that is not generated with its own profile below
+        Map<User.UserRole, List<String>> usersByRole = new EnumMap<>(User.UserRole.class);
+        List<User> supportOfficers = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(tx -> {
+            for (User.UserRole role : User.UserRole.values()) {
+                if (role == User.UserRole.DOCTOR || role == User.UserRole.POLICY_HOLDER) {
+                    continue;
+                }
+                List<String> emails = new ArrayList<>();
+                for (int i = 0; i < size.usersPerRole(); i++) {
+                    String name = role.name().toLowerCase().replace('_', '-');
+                    User user = userRepository.save(user("Bench " + name + " " + i,
+                            name + i + "-" + batch + "@bench.test", password, role));
+                    emails.add(user.getEmail());
+                    if (role == User.UserRole.CUSTOMER_SUPPORT_OFFICER) {
+                        supportOfficers.add(user);
+                    }
+                }
+                usersByRole.put(role, emails);
+            }
+        });
+
+        List<Long> doctorIds = new ArrayList<>();
+        List<String> doctorEmails = new ArrayList<>();
+        for (int from = 0; from < size.doctors(); from += CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(from + CHUNK_SIZE, size.doctors());
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (int i = start; i < end; i++) {
+                    User user = userRepository.save(user("Dr. Bench " + i, "doctor" + i + "-" + batch + "@bench.test",
+                            password, User.UserRole.DOCTOR));
+                    Doctor doctor = new Doctor();
+                    doctor.setUser(user);
+                    doctor.setSpecialization(SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)]);
+                    doctor.setRegistrationNo("BENCH-" + batch + "-" + i);
+                    doctor.setIsAvailable(true);
+                    doctorIds.add(doctorRepository.save(doctor).getId());
+                    doctorEmails.add(user.getEmail());
+                }
+            });
+        }
+
+        List<Holder> holders = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int from = 0; from < size.policyHolders(); from += CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(from + CHUNK_SIZE, size.policyHolders());
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (int i = start; i < end; i++) {
+                    User user = userRepository.save(user("Bench Holder " + i, "holder" + i + "-" + batch + "@bench.test",
+                            password, User.UserRole.POLICY_HOLDER));
+                    Policy policy = policies.get(random.nextInt(policies.size()));
+                    PolicyHolder holder = policyHolderRepository.save(policyHolder(user, policy, today, random));
+                    holders.add(new Holder(holder.getId(), user.getEmail(), policy.getId()));
+
+                    for (int c = 0; c < size.claimsPerHolder(); c++) {
+                        Claim claim = claimRepository.save(claim(holder, policy, today, random));
+                        for (int d = 0; d < size.documentsPerClaim(); d++) {
+                            claimDocumentRepository.save(claimDocument(claim, d, random));
+                        }
+                    }
+                    for (int t = 0; t < size.ticketsPerHolder(); t++) {
+                        ticketRepository.save(ticket(user, supportOfficers, random));
+                    }
+                }
+            });
+        }
+
+        generateAppointments(size, holders, doctorIds, today, random);
+        return new Dataset(holders, doctorIds, doctorEmails, usersByRole);
+    }
+
+    private void generateAppointments(Size size, List<Holder> holders, List<Long> doctorIds,
+                                      LocalDate today, Random random) {
+        if (doctorIds.isEmpty()) {
+            return;
+        }
+        // The default schedule: weekdays from 09:00 in 16 half-hour slots
+        Set<String> taken = new HashSet<>();
+        List<Appointment> pending = new ArrayList<>();
+        for (Holder holder : holders) {
+            for (int a = 0; a < size.appointmentsPerHolder(); a++) {
+                Long doctorId = doctorIds.get(random.nextInt(doctorIds.size()));
+                LocalDate date = today.plusDays(random.nextInt(APPOINTMENT_WINDOW_DAYS) - APPOINTMENT_WINDOW_DAYS / 2);
+                int slot = random.nextInt(16);
+                if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY
+                        || !taken.add(doctorId + "/" + date + "/" + slot)) {
+                    continue;
+                }
+                pending.add(appointment(holder.id(), doctorId, date, LocalTime.of(9, 0).plusMinutes(30L * slot),
+                        today, random));
+                if (pending.size() == CHUNK_SIZE) {
+                    saveAppointments(pending);
+                }
+            }
+        }
+        saveAppointments(pending);
+    }
+
+    private void saveAppointments(List<Appointment> appointments) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            for (Appointment appointment : appointments) {
+                appointment.setPolicyHolder(policyHolderRepository.getReferenceById(appointment.getPolicyHolder().getId()));
+                appointment.setDoctor(doctorRepository.getReferenceById(appointment.getDoctor().getId()));
+            }
+            appointmentRepository.saveAll(appointments);
+        });
+        appointments.clear();
+    }
+
+    private static User user(String name, String email, String password, User.UserRole role) {
+        User user = new User();
+        user.setFullName(name);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setPhone("0700000000");
+        user.setRole(role);
+        return user;
+    }
+
+    private static PolicyHolder policyHolder(User user, Policy policy, LocalDate today, Random random) {
+        LocalDate startDate = today.minusDays(random.nextInt(300));
+        PolicyHolder holder = new PolicyHolder();
+        holder.setUser(user);
+        holder.setPolicy(policy);
+        holder.setStartDate(startDate);
+        holder.setEndDate(startDate.plusMonths(policy.getDurationMonths()));
+        // Mostly active, with a share of the other states the dashboards and jobs look at
+        int roll = random.nextInt(100);
+        holder.setStatus(roll < 80 ? PolicyHolder.PolicyStatus.ACTIVE
+                : roll < 90 ? PolicyHolder.PolicyStatus.PENDING_APPROVAL
+                : roll < 95 ? PolicyHolder.PolicyStatus.EXPIRED
+                : PolicyHolder.PolicyStatus.SUSPENDED);
+        holder.setPolicyManagerApproved(holder.getStatus() != PolicyHolder.PolicyStatus.PENDING_APPROVAL);
+        holder.setFinanceOfficerApproved(holder.getStatus() != PolicyHolder.PolicyStatus.PENDING_APPROVAL);
+        return holder;
+    }
+
+    private static Claim claim(PolicyHolder holder, Policy policy, LocalDate today, Random random) {
+        Claim.ClaimStatus[] statuses = Claim.ClaimStatus.values();
+        Claim claim = new Claim();
+        claim.setPolicyHolder(holder);
+        claim.setPolicy(policy);
+        claim.setClaimDate(today.minusDays(random.nextInt(180)));
+        claim.setTreatmentDate(claim.getClaimDate().minusDays(random.nextInt(14)));
+        claim.setAmountClaimed(BigDecimal.valueOf(5_000 + random.nextInt(200_000), 2));
+        claim.setDescription("Generated claim");
+        claim.setMedicalDiagnosis("Diagnosis " + random.nextInt(100));
+        claim.setHospitalName(HOSPITALS[random.nextInt(HOSPITALS.length)]);
+        claim.setStatus(statuses[random.nextInt(statuses.length)]);
+        return claim;
+    }
+
+    private ClaimDocument claimDocument(Claim claim, int index, Random random) {
+        ClaimDocument.DocumentType[] types = ClaimDocument.DocumentType.values();
+        String fileName = "claim-" + claim.getId() + "-" + index + ".pdf";
+        FileStorageService.StoredFile stored = fileStorageService.store(
+                new MockMultipartFile(fileName, fileName, "application/pdf", DOCUMENT), CLAIM_DOCUMENTS_FOLDER);
+
+        ClaimDocument document = new ClaimDocument();
+        document.setClaim(claim);
+        document.setFileName(fileName);
+        document.setFileUrl(stored.path());
+        document.setFileType(stored.contentType());
+        document.setFileSize(stored.size());
+        document.setChecksum(stored.checksum());
+        document.setDocumentType(types[random.nextInt(types.length)]);
+        return document;
+    }
+
+    private static Ticket ticket(User user, List<User> supportOfficers, Random random) {
+        Ticket.TicketStatus[] statuses = Ticket.TicketStatus.values();
+        Ticket.TicketPriority[] priorities = Ticket.TicketPriority.values();
+        Ticket ticket = new Ticket();
+        ticket.setUser(user);
+        ticket.setTitle("Question about my policy");
+        ticket.setDescription("Generated ticket");
+        ticket.setPriority(priorities[random.nextInt(priorities.length)]);
+        ticket.setStatus(statuses[random.nextInt(statuses.length)]);
+        if (ticket.getStatus() != Ticket.TicketStatus.OPEN && !supportOfficers.isEmpty()) {
+            ticket.setAssignedTo(supportOfficers.get(random.nextInt(supportOfficers.size())));
+        }
+        if (ticket.getStatus() == Ticket.TicketStatus.RESOLVED || ticket.getStatus() == Ticket.TicketStatus.CLOSED) {
+            ticket.setResolvedAt(LocalDateTime.now().minusDays(random.nextInt(30)));
+        }
+        return ticket;
+    }
+
+    private static Appointment appointment(Long holderId, Long doctorId, LocalDate date, LocalTime time,
+                                           LocalDate today, Random random) {
+        PolicyHolder holder = new PolicyHolder();
+        holder.setId(holderId);
+        Doctor doctor = new Doctor();
+        doctor.setId(doctorId);
+
+        Appointment.AppointmentStatus status;
+        if (date.isBefore(today)) {
+            int roll = random.nextInt(10);
+            status = roll < 7 ? Appointment.AppointmentStatus.COMPLETED
+                    : roll < 9 ? Appointment.AppointmentStatus.CANCELLED
+                    : Appointment.AppointmentStatus.NO_SHOW;
+        } else {
+            status = random.nextBoolean() ? Appointment.AppointmentStatus.PENDING : Appointment.AppointmentStatus.CONFIRMED;
+        }
+
+        Appointment appointment = new Appointment();
+        appointment.setPolicyHolder(holder);
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentDate(date);
+        appointment.setAppointmentTime(time);
+        appointment.setStatus(status);
+        appointment.setReservedSlot(DoctorSlotIndex.HOLDING_STATUSES.contains(status)
+                ? DoctorSlotIndex.reservedSlot(time) : null);
+        appointment.setReason("Generated appointment");
+        return appointment;
+    }
+
+    /**
+     * How much to generate. usersPerRole applies to the roles without a profile of their own,
+     * staff and plain USER accounts.
+     */
+    public record Size(int policyHolders, int doctors, int usersPerRole, int claimsPerHolder,
+                       int documentsPerClaim, int appointmentsPerHolder, int ticketsPerHolder) {
+
+        public static Size from(Environment environment) {
+            return new Size(
+                    environment.getProperty("generator.policy-holders", Integer.class, 1000),
+                    environment.getProperty("generator.doctors", Integer.class, 20),
+                    environment.getProperty("generator.users-per-role", Integer.class, 5),
+                    environment.getProperty("generator.claims-per-holder", Integer.class, 3),
+                    environment.getProperty("generator.documents-per-claim", Integer.class, 1),
+                    environment.getProperty("generator.appointments-per-holder", Integer.class, 2),
+                    environment.getProperty("generator.tickets-per-holder", Integer.class, 1));
+        }
+    }
+
+    public record Holder(Long id, String email, Long policyId) {
+    }
+
+    public record Dataset(List<Holder> holders, List<Long> doctorIds, List<String> doctorEmails,
+                          Map<User.UserRole, List<String>> usersByRole) {
+    }
+}
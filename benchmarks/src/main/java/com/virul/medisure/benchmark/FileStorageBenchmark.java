@@ -0,0 +1,66 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.service.FileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storing a claim document on the filesystem storage, from a multipart file and streamed.
+ * Each stored file is released again, so the benchmark does not fill the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FileStorageBenchmark {
+
+    @Param({"4096", "1048576"})
+    public int size;
+
+    private FileStorageService fileStorageService;
+    private MockMultipartFile file;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) {
+        fileStorageService = app.bean(FileStorageService.class);
+        content = new byte[size];
+        new Random(app.seed).nextBytes(content);
+        // A PDF header, so the streamed path identifies the content type like for a real upload
+        System.arraycopy("%PDF-1.4\n".getBytes(), 0, content, 0, 9);
+        file = new MockMultipartFile("file", "report.pdf", "application/pdf", content);
+    }
+
+    @Benchmark
+    public FileStorageService.StoredFile storeMultipart() {
+        FileStorageService.StoredFile stored = fileStorageService.store(file, "bench");
+        fileStorageService.release(stored.path());
+        return stored;
+    }
+
+    @Benchmark
+    public FileStorageService.StoredFile storeStream() throws IOException {
+        FileStorageService.StoredFile stored = fileStorageService.store(
+                new ByteArrayInputStream(content), "report.pdf", "application/pdf", "bench");
+        fileStorageService.release(stored.path());
+        return stored;
+    }
+}
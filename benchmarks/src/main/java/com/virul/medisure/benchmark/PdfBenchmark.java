@@ -0,0 +1,60 @@
+package com.virul.medisure.benchmark;
+
+import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.repository.PolicyHolderRepository;
+import com.virul.medisure.service.PdfService;
+import com.virul.medisure.service.PolicyCertificateTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering a policy document, both through PdfService and from prepared certificate fields
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PdfBenchmark {
+
+    private PdfService pdfService;
+    private PolicyHolder policyHolder;
+    private PolicyCertificateTemplate.CertificateFields fields;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState app) {
+        pdfService = app.bean(PdfService.class);
+        // Loaded with its user and policy, as the approval flow does before rendering
+        policyHolder = app.transactionTemplate.execute(tx -> {
+            PolicyHolder holder = app.bean(PolicyHolderRepository.class).findByStatusAndIdGreaterThanOrderByIdAsc(
+                    PolicyHolder.PolicyStatus.ACTIVE, 0L, Limit.of(1)).get(0);
+            holder.getUser().getFullName();
+            holder.getPolicy().getName();
+            return holder;
+        });
+        fields = PolicyCertificateTemplate.CertificateFields.of(policyHolder);
+    }
+
+    @Benchmark
+    public byte[] renderPolicyDocument() {
+        return pdfService.renderPolicyDocument(policyHolder);
+    }
+
+    @Benchmark
+    public byte[] renderCertificate() {
+        return pdfService.renderCertificate(fields);
+    }
+}
@@ -0,0 +1,272 @@
+package com.virul.medisure.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.virul.medisure.benchmark.DataGenerator;
+import com.virul.medisure.dto.AppointmentRequest;
+import com.virul.medisure.dto.ClaimRequest;
+import com.virul.medisure.dto.TicketRequest;
+import com.virul.medisure.model.Policy;
+import com.virul.medisure.model.Ticket;
+import com.virul.medisure.model.User;
+import com.virul.medisure.repository.PolicyRepository;
+import com.virul.medisure.repository.UserRepository;
+import com.virul.medisure.security.JwtUtil;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The requests of the load test, one kind per endpoint, made as the seeded users (purchases as
+ * new customers, created while the request is prepared). Tokens are
+ * issued with the context's JwtUtil, so an external target must share its jwt.secret.
+ */
+class LoadScenario {
+
+    // The default schedule: 09:00 to 17:00 in 30 minute slots
+    private static final int SLOTS_PER_DAY = 16;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final List<Caller> holders = new ArrayList<>();
+    private final List<Caller> bookers = new ArrayList<>();
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final String buyerPassword;
+    private final AtomicLong buyers = new AtomicLong();
+    private final List<Long> doctorIds;
+    private final List<Long> policyIds;
+    private final byte[] document;
+    private final LocalDate firstAppointmentDate;
+    private final AtomicLong appointmentSlots = new AtomicLong();
+    private final Map<String, Function<Random, HttpRequest>> endpoints = new LinkedHashMap<>();
+
+    LoadScenario(ApplicationContext context, DataGenerator.Dataset dataset, String baseUrl, int documentSize) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = context.getBean(ObjectMapper.class);
+        this.doctorIds = dataset.doctorIds();
+
+        PolicyRepository policyRepository = context.getBean(PolicyRepository.class);
+        Map<Long, Policy.PolicyType> policyTypes = new LinkedHashMap<>();
+        policyRepository.findAll().forEach(policy -> policyTypes.put(policy.getId(), policy.getType()));
+        this.policyIds = List.copyOf(policyTypes.keySet());
+
+        this.userRepository = context.getBean(UserRepository.class);
+        this.jwtUtil = context.getBean(JwtUtil.class);
+        this.buyerPassword = context.getBean(PasswordEncoder.class).encode(DataGenerator.PASSWORD);
+        for (DataGenerator.Holder holder : dataset.holders()) {
+            User user = userRepository.findByEmail(holder.email()).orElseThrow();
+            Caller caller = new Caller(jwtUtil.generateToken(user), holder.policyId());
+            holders.add(caller);
+            // Only these policies include appointment booking
+            if (Set.of(Policy.PolicyType.PREMIUM, Policy.PolicyType.SENIOR).contains(policyTypes.get(holder.policyId()))) {
+                bookers.add(caller);
+            }
+        }
+
+        this.document = new byte[documentSize];
+        new Random(documentSize).nextBytes(document);
+        byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, document, 0, Math.min(header.length, documentSize));
+
+        // Book past everything already in the calendar, so reruns on one database find free slots
+        LocalDate latest = context.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT MAX(appointment_date) FROM appointments", LocalDate.class);
+        LocalDate first = LocalDate.now().plusDays(DataGenerator.APPOINTMENT_WINDOW_DAYS);
+        this.firstAppointmentDate = latest != null && !latest.isBefore(first) ? latest.plusDays(1) : first;
+
+        endpoints.put("POST /api/claims", this::submitClaim);
+        endpoints.put("POST /api/claims/submit-with-documents", this::submitClaimWithDocuments);
+        endpoints.put("GET /api/claims/my-claims", random -> get("/api/claims/my-claims", pick(holders, random)));
+        if (!bookers.isEmpty() && !doctorIds.isEmpty()) {
+            endpoints.put("POST /api/appointments", this::bookAppointment);
+        }
+        endpoints.put("GET /api/appointments/my-appointments",
+                random -> get("/api/appointments/my-appointments", pick(holders, random)));
+        endpoints.put("POST /api/policy-holder/purchase", this::purchasePolicy);
+        endpoints.put("POST /api/tickets", this::createTicket);
+        endpoints.put("GET /api/tickets/my-tickets", random -> get("/api/tickets/my-tickets", pick(holders, random)));
+    }
+
+    /**
+     * The endpoints to drive, all of them unless some are selected by name
+     */
+    Map<String, Function<Random, HttpRequest>> endpoints(Collection<String> selected) {
+        if (selected.isEmpty()) {
+            return endpoints;
+        }
+        Map<String, Function<Random, HttpRequest>> chosen = new LinkedHashMap<>();
+        for (String name : selected) {
+            Function<Random, HttpRequest> endpoint = endpoints.get(name);
+            if (endpoint == null) {
+                throw new IllegalArgumentException("Unknown endpoint '" + name + "', expected one of " + endpoints.keySet());
+            }
+            chosen.put(name, endpoint);
+        }
+        return chosen;
+    }
+
+    private HttpRequest submitClaim(Random random) {
+        Caller caller = pick(holders, random);
+        return post("/api/claims", caller, "application/json", json(claimRequest(caller, random)));
+    }
+
+    private HttpRequest submitClaimWithDocuments(Random random) {
+        Caller caller = pick(holders, random);
+        ClaimRequest claim = claimRequest(caller, random);
+        Multipart multipart = new Multipart()
+                .field("policyId", claim.getPolicyId().toString())
+                .field("claimDate", claim.getClaimDate().toString())
+                .field("amountClaimed", claim.getAmountClaimed().toPlainString())
+                .field("description", claim.getDescription())
+                .field("hospitalName", claim.getHospitalName())
+                .field("treatmentDate", claim.getTreatmentDate().toString())
+                .file("billDocument", "bill.pdf", "application/pdf", document);
+        return post("/api/claims/submit-with-documents", caller, multipart.contentType(), multipart.body());
+    }
+
+    private HttpRequest bookAppointment(Random random) {
+        // Every request takes the next free slot: doctor by doctor, then slot, then weekday
+        long next = appointmentSlots.getAndIncrement();
+        long perDay = (long) doctorIds.size() * SLOTS_PER_DAY;
+        AppointmentRequest request = new AppointmentRequest();
+        request.setDoctorId(doctorIds.get((int) (next % doctorIds.size())));
+        request.setAppointmentTime(LocalTime.of(9, 0).plusMinutes(30 * ((next / doctorIds.size()) % SLOTS_PER_DAY)));
+        request.setAppointmentDate(plusWeekdays(firstAppointmentDate, next / perDay));
+        request.setReason("Load test appointment");
+        return post("/api/appointments", pick(bookers, random), "application/json", json(request));
+    }
+
+    private HttpRequest purchasePolicy(Random random) {
+        // A user holds at most one policy, so every purchase is made by a new customer
+        User buyer = new User();
+        buyer.setFullName("Load Test Customer");
+        buyer.setEmail("customer" + buyers.incrementAndGet() + "-" + Long.toString(System.nanoTime(), 36) + "@loadtest.test");
+        buyer.setPassword(buyerPassword);
+        buyer.setRole(User.UserRole.USER);
+        Caller caller = new Caller(jwtUtil.generateToken(userRepository.save(buyer)), null);
+        return post("/api/policy-holder/purchase/" + pick(policyIds, random), caller, "application/json", new byte[0]);
+    }
+
+    private HttpRequest createTicket(Random random) {
+        Ticket.TicketPriority[] priorities = Ticket.TicketPriority.values();
+        TicketRequest request = new TicketRequest("Load test ticket", "Question raised by the load test",
+                priorities[random.nextInt(priorities.length)]);
+        return post("/api/tickets", pick(holders, random), "application/json", json(request));
+    }
+
+    private static ClaimRequest claimRequest(Caller caller, Random random) {
+        ClaimRequest request = new ClaimRequest();
+        request.setPolicyId(caller.policyId());
+        request.setClaimDate(LocalDate.now());
+        request.setTreatmentDate(LocalDate.now().minusDays(1 + random.nextInt(14)));
+        request.setAmountClaimed(BigDecimal.valueOf(5_000 + random.nextInt(200_000), 2));
+        request.setDescription("Load test claim");
+        request.setHospitalName("City General Hospital");
+        return request;
+    }
+
+    private HttpRequest get(String path, Caller caller) {
+        return request(path, caller).GET().build();
+    }
+
+    private HttpRequest post(String path, Caller caller, String contentType, byte[] body) {
+        return request(path, caller)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, Caller caller) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Authorization", "Bearer " + caller.token());
+    }
+
+    private byte[] json(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write request body", e);
+        }
+    }
+
+    private static <T> T pick(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static LocalDate plusWeekdays(LocalDate date, long weekdays) {
+        LocalDate result = date;
+        while (result.getDayOfWeek() == DayOfWeek.SATURDAY || result.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            result = result.plusDays(1);
+        }
+        for (long i = 0; i < weekdays; i++) {
+            result = result.plusDays(1);
+            while (result.getDayOfWeek() == DayOfWeek.SATURDAY || result.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                result = result.plusDays(1);
+            }
+        }
+        return result;
+    }
+
+    private record Caller(String token, Long policyId) {
+    }
+
+    /**
+     * A multipart/form-data body, built in memory
+     */
+    private static class Multipart {
+
+        private final String boundary = "loadtest-" + UUID.randomUUID();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        Multipart field(String name, String value) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                    + value + "\r\n");
+            return this;
+        }
+
+        Multipart file(String name, String fileName, String contentType, byte[] content) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\""
+                    + fileName + "\"\r\nContent-Type: " + contentType + "\r\n\r\n");
+            body.writeBytes(content);
+            write("\r\n");
+            return this;
+        }
+
+        String contentType() {
+            return "multipart/form-data; boundary=" + boundary;
+        }
+
+        byte[] body() {
+            write("--" + boundary + "--\r\n");
+            return body.toByteArray();
+        }
+
+        private void write(String text) {
+            body.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
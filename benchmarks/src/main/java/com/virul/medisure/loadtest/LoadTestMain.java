@@ -0,0 +1,178 @@
+package com.virul.medisure.loadtest;
+
+import com.virul.medisure.benchmark.BenchmarkContext;
+import com.virul.medisure.benchmark.DataGenerator;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * End-to-end load test: seeds a database with DataGenerator, then drives the REST API over HTTP
+ * from a number of concurrent clients and reports throughput, latency percentiles, error rate
+ * and SQL statements per request for each endpoint.
+ * <p>
+ * By default the application under test runs in this process on an in-memory H2 database.
+ * Point spring.datasource.* at a local Postgres to seed and test against that instead, and set
+ * loadtest.base-url to drive an application started separately on the same database and with
+ * the same jwt.secret (statement counts are then not available). Options, as --name=value:
+ * <ul>
+ *     <li>loadtest.concurrency: concurrent clients, default 16</li>
+ *     <li>loadtest.warmup-seconds / loadtest.duration-seconds: default 10 / 30</li>
+ *     <li>loadtest.endpoints: comma separated endpoint names as in the report, default all</li>
+ *     <li>loadtest.document-size: bytes per uploaded claim document, default 65536</li>
+ *     <li>generator.*: size of the seeded data, see {@link DataGenerator}</li>
+ *     <li>spring.threads.virtual.enabled: serve on virtual threads (Java 21), see
+ *     {@link ThreadingComparisonMain}</li>
+ * </ul>
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        run(args).print();
+    }
+
+    /**
+     * Seed a database and load test the application in a context of its own
+     */
+    static Report run(String... args) throws InterruptedException {
+        QueryCounter queryCounter = new QueryCounter();
+        try (ConfigurableApplicationContext context = BenchmarkContext.start(queryCounter.installer(), args)) {
+            Environment environment = context.getEnvironment();
+            int concurrency = environment.getProperty("loadtest.concurrency", Integer.class, 16);
+            int warmupSeconds = environment.getProperty("loadtest.warmup-seconds", Integer.class, 10);
+            int durationSeconds = environment.getProperty("loadtest.duration-seconds", Integer.class, 30);
+            int documentSize = environment.getProperty("loadtest.document-size", Integer.class, 65536);
+            long seed = environment.getProperty("generator.seed", Long.class, 42L);
+            String baseUrl = environment.getProperty("loadtest.base-url", "");
+            boolean external = StringUtils.hasText(baseUrl);
+            if (!external) {
+                baseUrl = "http://localhost:" + environment.getProperty("local.server.port");
+            }
+
+            System.out.println("Seeding test data...");
+            long seedingStarted = System.nanoTime();
+            DataGenerator.Dataset dataset = new DataGenerator(context).generate(DataGenerator.Size.from(environment), seed);
+            System.out.printf("Seeded %d policy holders and %d doctors in %d s%n", dataset.holders().size(),
+                    dataset.doctorIds().size(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - seedingStarted));
+
+            LoadScenario scenario = new LoadScenario(context, dataset, baseUrl, documentSize);
+            Map<String, Function<Random, HttpRequest>> endpoints = scenario.endpoints(
+                    StringUtils.commaDelimitedListToSet(environment.getProperty("loadtest.endpoints", "")));
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            System.out.printf("Driving %s%s with %d clients: %d s warm-up, %d s measured%n", baseUrl,
+                    external ? "" : Threading.VIRTUAL.isActive(environment) ? " on virtual threads" : " on platform threads",
+                    concurrency, warmupSeconds, durationSeconds);
+            run(client, endpoints, concurrency, warmupSeconds, seed);
+            queryCounter.reset();
+            Map<String, EndpointStats> results = run(client, endpoints, concurrency, durationSeconds, seed + 1);
+            return new Report(results, durationSeconds, external ? null : queryCounter);
+        }
+    }
+
+    /**
+     * Run the clients for the given time, each going round the endpoints from its own starting
+     * point, and merge what they recorded
+     */
+    private static Map<String, EndpointStats> run(HttpClient client, Map<String, Function<Random, HttpRequest>> endpoints,
+                                                  int concurrency, int seconds, long seed) throws InterruptedException {
+        List<String> names = List.copyOf(endpoints.keySet());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Map<String, EndpointStats>> recorded = new ArrayList<>();
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            int offset = c;
+            Random random = new Random(seed * 31 + c);
+            Map<String, EndpointStats> stats = new LinkedHashMap<>();
+            names.forEach(name -> stats.put(name, new EndpointStats()));
+            recorded.add(stats);
+
+            Thread thread = new Thread(() -> {
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    String name = names.get(i % names.size());
+                    HttpRequest request = HttpRequest.newBuilder(endpoints.get(name).apply(random), (header, value) -> true)
+                            .header(QueryCounter.ENDPOINT_HEADER, name)
+                            .build();
+                    long started = System.nanoTime();
+                    boolean error;
+                    try {
+                        error = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+                    } catch (IOException e) {
+                        error = true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    stats.get(name).record(System.nanoTime() - started, error);
+                }
+            }, "loadtest-client-" + c);
+            thread.start();
+            clients.add(thread);
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+
+        Map<String, EndpointStats> merged = new LinkedHashMap<>();
+        names.forEach(name -> merged.put(name, new EndpointStats()));
+        recorded.forEach(stats -> stats.forEach((name, endpoint) -> merged.get(name).addAll(endpoint)));
+        return merged;
+    }
+
+    /**
+     * What was measured per endpoint; statement counts only when the application ran in process
+     */
+    record Report(Map<String, EndpointStats> results, int seconds, QueryCounter queryCounter) {
+
+        private static final String FORMAT = "%-42s %9s %8s %7s %9s %9s %9s %9s %9s%n";
+
+        void print() {
+            System.out.println();
+            System.out.printf(FORMAT, "Endpoint", "Requests", "Req/s", "Errors", "p50 ms", "p95 ms", "p99 ms", "Max ms", "SQL/req");
+            results.forEach((name, stats) -> printRow(name, stats,
+                    queryCounter == null || stats.count() == 0 ? "-"
+                            : String.format("%.1f", queryCounter.statements(name) / (double) stats.count())));
+        }
+
+        /**
+         * All endpoints together
+         */
+        EndpointStats total() {
+            EndpointStats total = new EndpointStats();
+            results.values().forEach(total::addAll);
+            return total;
+        }
+
+        void printRow(String name, EndpointStats stats, String statements) {
+            System.out.printf(FORMAT, name,
+                    stats.count(),
+                    String.format("%.1f", stats.count() / (double) seconds),
+                    String.format("%.1f%%", stats.errorRate() * 100),
+                    String.format("%.1f", stats.percentileMillis(50)),
+                    String.format("%.1f", stats.percentileMillis(95)),
+                    String.format("%.1f", stats.percentileMillis(99)),
+                    String.format("%.1f", stats.maxMillis()),
+                    statements);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.virul.medisure.loadtest;
+
+import com.virul.medisure.metrics.SqlBudgetFilter;
+import com.virul.medisure.metrics.SqlStatementStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums the SQL statements of load test requests per endpoint, as counted by the application's
+ * SqlBudgetFilter. The load generator names the endpoint in the {@value #ENDPOINT_HEADER}
+ * header; statements are attributed to the request thread, so work handed to background
+ * executors (e.g. payment processing) is not included.
+ */
+class QueryCounter extends OncePerRequestFilter {
+
+    static final String ENDPOINT_HEADER = "X-Load-Endpoint";
+
+    private final Map<String, LongAdder> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the counter as the first servlet filter of the context, around SqlBudgetFilter
+     */
+    ApplicationContextInitializer<ConfigurableApplicationContext> installer() {
+        return context -> {
+            FilterRegistrationBean<QueryCounter> registration = new FilterRegistrationBean<>(this);
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            context.getBeanFactory().registerSingleton("loadTestQueryCounter", this);
+            context.getBeanFactory().registerSingleton("loadTestQueryCounterRegistration", registration);
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = request.getHeader(ENDPOINT_HEADER);
+        if (endpoint == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.getAttribute(SqlBudgetFilter.STATS_ATTRIBUTE) instanceof SqlStatementStats stats) {
+                statements.computeIfAbsent(endpoint, key -> new LongAdder()).add(stats.getStatements());
+            }
+        }
+    }
+
+    long statements(String endpoint) {
+        LongAdder count = statements.get(endpoint);
+        return count == null ? 0 : count.sum();
+    }
+
+    void reset() {
+        statements.clear();
+    }
+}
@@ -0,0 +1,64 @@
+package com.virul.medisure.loadtest;
+
+import org.springframework.boot.system.JavaVersion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load tests the application on platform threads and then on virtual threads, each in a fresh
+ * context and database, and compares their throughput and latency. Needs Java 21. Takes the
+ * options of {@link LoadTestMain}, with 1000 concurrent clients unless loadtest.concurrency says
+ * otherwise; the application always runs in process, as the thread mode is set at its start.
+ * <p>
+ * On platform threads Tomcat serves at most server.tomcat.threads.max (200) requests at a time
+ * and queues the rest on their connections; on virtual threads every request gets a thread and
+ * waits for a database connection instead.
+ */
+public final class ThreadingComparisonMain {
+
+    private static final String CONCURRENCY = "--loadtest.concurrency=";
+    private static final String VIRTUAL_THREADS = "--spring.threads.virtual.enabled=";
+
+    private ThreadingComparisonMain() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (!JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("Comparing with virtual threads needs Java 21, running on "
+                    + JavaVersion.getJavaVersion());
+        }
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--loadtest.base-url="))) {
+            throw new IllegalArgumentException("The comparison starts the application itself, loadtest.base-url is not supported");
+        }
+
+        Map<String, LoadTestMain.Report> reports = new LinkedHashMap<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            String mode = virtual ? "Virtual threads" : "Platform threads";
+            System.out.printf("%n%s%n", mode);
+            LoadTestMain.Report report = LoadTestMain.run(arguments(args, virtual));
+            report.print();
+            reports.put(mode, report);
+        }
+
+        System.out.println();
+        System.out.println("All endpoints");
+        reports.forEach((mode, report) -> report.printRow(mode, report.total(), "-"));
+    }
+
+    /**
+     * The given options with the thread mode set, and the default concurrency unless one is given
+     */
+    private static String[] arguments(String[] args, boolean virtual) {
+        List<String> arguments = new ArrayList<>();
+        if (Arrays.stream(args).noneMatch(arg -> arg.startsWith(CONCURRENCY))) {
+            arguments.add(CONCURRENCY + 1000);
+        }
+        Arrays.stream(args).filter(arg -> !arg.startsWith(VIRTUAL_THREADS)).forEach(arguments::add);
+        arguments.add(VIRTUAL_THREADS + virtual);
+        return arguments.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,30 @@
+package com.virul.medisure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-memory caches for reference data that is read on every page view but rarely changes.
+ * The owning services evict a cache whenever they modify its entities.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String POLICIES = "policies";
+    public static final String DOCTORS = "doctors";
+
+    @Value("${cache.reference-data.spec:maximumSize=100,expireAfterWrite=10m}")
+    private String referenceDataSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(POLICIES, DOCTORS);
+        cacheManager.setCacheSpecification(referenceDataSpec);
+        return cacheManager;
+    }
+}
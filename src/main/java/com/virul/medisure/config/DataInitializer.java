@@ -8,6 +8,7 @@ import com.virul.medisure.repository.PolicyRepository;
 import com.virul.medisure.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -22,7 +23,9 @@ public class DataInitializer implements CommandLineRunner {
     private final DoctorRepository doctorRepository;
     private final PasswordEncoder passwordEncoder;
 
+    // Requests can arrive before seeding finishes, so drop anything cached in the meantime
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.POLICIES, CacheConfig.DOCTORS}, allEntries = true)
     public void run(String... args) {
         // Create admin user
         if (!userRepository.existsByEmail("admin@medicare.com")) {
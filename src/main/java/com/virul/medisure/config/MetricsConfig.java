@@ -0,0 +1,20 @@
+package com.virul.medisure.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Makes @Timed work on Spring beans. Services annotated with @Timed("medisure.service") get a
+ * timer per public method, tagged with class, method and exception; they are scraped from
+ * /actuator/prometheus along with the HTTP, HikariCP and Hibernate meters.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.virul.medisure.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.util.Set;
+
+/**
+ * Spring's multipart handling reads every part of the request (to memory or a temp file)
+ * before the controller runs. Endpoints listed here parse the request body themselves as a
+ * stream, so the resolver leaves their requests untouched.
+ */
+@Configuration
+public class MultipartConfig {
+
+    public static final String CLAIM_STREAMING_UPLOAD_PATH = "/api/claims/submit-with-documents/stream";
+
+    private static final Set<String> STREAMING_PATHS = Set.of(CLAIM_STREAMING_UPLOAD_PATH);
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public StandardServletMultipartResolver multipartResolver(MultipartProperties multipartProperties) {
+        StandardServletMultipartResolver resolver = new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return super.isMultipart(request) && !STREAMING_PATHS.contains(request.getServletPath());
+            }
+        };
+        resolver.setResolveLazily(multipartProperties.isResolveLazily());
+        resolver.setStrictServletCompliance(multipartProperties.isStrictServletCompliance());
+        return resolver;
+    }
+}
@@ -0,0 +1,13 @@
+package com.virul.medisure.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled batch jobs, e.g. the nightly policy expiry.
+ * A job's cron can be set to "-" to turn it off on an instance.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,137 @@
+package com.virul.medisure.config;
+
+import com.virul.medisure.storage.DocumentStorage;
+import com.virul.medisure.storage.FilesystemDocumentStorage;
+import com.virul.medisure.storage.ReplicatedDocumentStorage;
+import com.virul.medisure.storage.S3DocumentStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.checksums.RequestChecksumCalculation;
+import software.amazon.awssdk.core.checksums.ResponseChecksumValidation;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Chooses where document files are kept: the local filesystem (default) or an S3-compatible
+ * bucket, optionally replicated in the background to a second filesystem or bucket.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${storage.type:filesystem}")
+    private String type;
+
+    @Value("${storage.filesystem.root:.}")
+    private String filesystemRoot;
+
+    @Value("${storage.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${storage.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${storage.s3.bucket:medisure-documents}")
+    private String s3Bucket;
+
+    @Value("${storage.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${storage.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Value("${storage.s3.path-style:true}")
+    private boolean s3PathStyle;
+
+    @Value("${storage.s3.create-bucket:false}")
+    private boolean s3CreateBucket;
+
+    @Value("${storage.s3.part-size-mb:8}")
+    private int s3PartSizeMb;
+
+    @Value("${storage.s3.presign-ttl-seconds:300}")
+    private long s3PresignTtlSeconds;
+
+    @Value("${storage.replica.type:none}")
+    private String replicaType;
+
+    @Value("${storage.replica.filesystem.root:replica}")
+    private String replicaFilesystemRoot;
+
+    @Value("${storage.replica.s3.bucket:medisure-documents-replica}")
+    private String replicaS3Bucket;
+
+    @Value("${storage.replica.threads:2}")
+    private int replicaThreads;
+
+    @Value("${storage.replica.queue-capacity:1000}")
+    private int replicaQueueCapacity;
+
+    @Bean
+    public DocumentStorage documentStorage() throws IOException {
+        DocumentStorage primary = create(type, filesystemRoot, s3Bucket);
+        if ("none".equals(replicaType)) {
+            return primary;
+        }
+        DocumentStorage replica = create(replicaType, replicaFilesystemRoot, replicaS3Bucket);
+        return new ReplicatedDocumentStorage(primary, replica, replicaThreads, replicaQueueCapacity);
+    }
+
+    private DocumentStorage create(String storageType, String root, String bucket) throws IOException {
+        switch (storageType) {
+            case "filesystem":
+                return new FilesystemDocumentStorage(root);
+            case "s3":
+                S3DocumentStorage storage = new S3DocumentStorage(s3Client(), s3Presigner(), bucket,
+                        s3PartSizeMb * 1024 * 1024, Duration.ofSeconds(s3PresignTtlSeconds));
+                if (s3CreateBucket) {
+                    storage.createBucketIfMissing();
+                }
+                return storage;
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + storageType);
+        }
+    }
+
+    private S3Client s3Client() {
+        var builder = S3Client.builder()
+                .region(Region.of(s3Region))
+                .credentialsProvider(s3Credentials())
+                .forcePathStyle(s3PathStyle)
+                // S3-compatible servers do not all accept the SDK's default CRC trailers
+                .requestChecksumCalculation(RequestChecksumCalculation.WHEN_REQUIRED)
+                .responseChecksumValidation(ResponseChecksumValidation.WHEN_REQUIRED);
+        if (!s3Endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(s3Endpoint));
+        }
+        return builder.build();
+    }
+
+    private S3Presigner s3Presigner() {
+        var builder = S3Presigner.builder()
+                .region(Region.of(s3Region))
+                .credentialsProvider(s3Credentials())
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(s3PathStyle).build());
+        if (!s3Endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(s3Endpoint));
+        }
+        return builder.build();
+    }
+
+    private AwsCredentialsProvider s3Credentials() {
+        if (s3AccessKey.isBlank()) {
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(s3AccessKey, s3SecretKey));
+    }
+}
@@ -0,0 +1,51 @@
+package com.virul.medisure.config;
+
+import com.virul.medisure.metrics.PinnedThreadMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Virtual thread mode. With spring.threads.virtual.enabled on Java 21+, Spring Boot serves
+ * requests on a virtual thread each and runs @Async and @Scheduled work on virtual threads;
+ * this adds the pinned thread report. The application's own worker pools (payments, documents,
+ * claim attachments, replication) keep their sized platform threads, as their size is what
+ * bounds the load they put on the database and storage.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class ThreadingConfig {
+
+    private final Environment environment;
+
+    @PostConstruct
+    void logThreading() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Serving requests and running async and scheduled work on virtual threads");
+        } else if (requested) {
+            log.warn("spring.threads.virtual.enabled is set but virtual threads need Java 21, running on {}; "
+                    + "using platform threads", JavaVersion.getJavaVersion());
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnProperty(name = "threads.virtual.pinned-report.enabled", matchIfMissing = true)
+    public PinnedThreadMonitor pinnedThreadMonitor(MeterRegistry meterRegistry,
+                                                   @Value("${threads.virtual.pinned-report.threshold-ms:20}") long thresholdMs) {
+        return new PinnedThreadMonitor(meterRegistry, Duration.ofMillis(thresholdMs));
+    }
+}
@@ -1,15 +1,23 @@
 package com.virul.medisure.controller;
 
 import com.virul.medisure.dto.ApiResponse;
+import com.virul.medisure.dto.CursorPage;
+import com.virul.medisure.model.AuditLog;
 import com.virul.medisure.model.User;
+import com.virul.medisure.service.AuditLogService;
 import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.ContentAddressedStore;
+import com.virul.medisure.service.NdjsonExportService;
 import com.virul.medisure.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +29,9 @@ public class AdminController {
 
     private final UserService userService;
     private final AuthService authService;
+    private final AuditLogService auditLogService;
+    private final NdjsonExportService ndjsonExportService;
+    private final ContentAddressedStore contentAddressedStore;
 
     @GetMapping("/users")
     @Transactional(readOnly = true)
@@ -40,6 +51,34 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/audit-logs/page")
+    public ResponseEntity<ApiResponse<CursorPage<AuditLog>>> getAuditLogsPage(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<AuditLog> page = auditLogService.getAuditLogsPage(after, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    @GetMapping(value = "/audit-logs/export", produces = NdjsonExportService.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonExportService.NDJSON_MEDIA_TYPE))
+                .body(ndjsonExportService.export(auditLogService::getAuditLogsAfter, AuditLog::getId));
+    }
+
+    @PostMapping("/storage/gc")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> collectStorageGarbage() {
+        try {
+            int removed = contentAddressedStore.collectGarbage();
+            Map<String, Object> result = new HashMap<>();
+            result.put("removedFiles", removed);
+            result.put("blobs", contentAddressedStore.countBlobs());
+            result.put("referencedBlobs", contentAddressedStore.countReferencedBlobs());
+            return ResponseEntity.ok(ApiResponse.success(result));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @PostMapping("/users")
     public ResponseEntity<ApiResponse<User>> createEmployee(@RequestBody Map<String, Object> payload) {
         try {
@@ -2,17 +2,25 @@ package com.virul.medisure.controller;
 
 import com.virul.medisure.dto.ApiResponse;
 import com.virul.medisure.dto.AppointmentRequest;
+import com.virul.medisure.dto.CursorPage;
+import com.virul.medisure.dto.DoctorAvailability;
 import com.virul.medisure.model.Appointment;
 import com.virul.medisure.model.PolicyHolder;
 import com.virul.medisure.service.AppointmentService;
 import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.DoctorScheduleService;
+import com.virul.medisure.service.DoctorService;
+import com.virul.medisure.service.DoctorSlotIndex;
 import com.virul.medisure.service.PolicyHolderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -23,6 +31,9 @@ public class AppointmentController {
     private final AppointmentService appointmentService;
     private final PolicyHolderService policyHolderService;
     private final AuthService authService;
+    private final DoctorService doctorService;
+    private final DoctorSlotIndex doctorSlotIndex;
+    private final DoctorScheduleService doctorScheduleService;
 
     @PostMapping
     @PreAuthorize("hasRole('POLICY_HOLDER')")
@@ -46,6 +57,41 @@ public class AppointmentController {
         }
     }
 
+    /**
+     * Doctors with free slots in the coming days, optionally of one specialization.
+     * Pass nextCursor back as "after" for the next page; a page can be short, even empty, and
+     * still have a nextCursor when the search stopped after examining its share of doctors.
+     */
+    @GetMapping("/free-slots")
+    public ResponseEntity<ApiResponse<CursorPage<DoctorAvailability>>> searchFreeSlots(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<DoctorAvailability> page = doctorScheduleService.searchFreeSlots(specialization,
+                    from != null ? from : LocalDate.now(), days, after, size);
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Start times the doctor can still be booked at on the date
+     */
+    @GetMapping("/doctors/{doctorId}/free-slots")
+    public ResponseEntity<ApiResponse<List<LocalTime>>> getFreeSlots(@PathVariable Long doctorId,
+                                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            doctorService.getDoctorById(doctorId);
+            return ResponseEntity.ok(ApiResponse.success(doctorSlotIndex.freeSlots(doctorId, date)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/my-appointments")
     @PreAuthorize("hasRole('POLICY_HOLDER')")
     public ResponseEntity<ApiResponse<List<Appointment>>> getMyAppointments() {
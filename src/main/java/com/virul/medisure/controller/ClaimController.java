@@ -2,18 +2,23 @@ package com.virul.medisure.controller;
 
 import com.virul.medisure.dto.ApiResponse;
 import com.virul.medisure.dto.ClaimRequest;
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.Claim;
 import com.virul.medisure.model.ClaimDocument;
 import com.virul.medisure.model.PolicyHolder;
 import com.virul.medisure.repository.ClaimDocumentRepository;
 import com.virul.medisure.service.*;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +34,9 @@ public class ClaimController {
     private final AuthService authService;
     private final FileStorageService fileStorageService;
     private final ClaimDocumentRepository claimDocumentRepository;
+    private final ClaimUploadService claimUploadService;
+    private final ClaimSubmissionService claimSubmissionService;
+    private final NdjsonExportService ndjsonExportService;
 
     @PostMapping
     @PreAuthorize("hasRole('POLICY_HOLDER')")
@@ -64,9 +72,8 @@ public class ClaimController {
             ClaimRequest request = createClaimRequest(policyId, claimDate, amountClaimed, description, 
                     medicalDiagnosis, hospitalName, treatmentDate);
             
-            Claim claim = claimService.submitClaim(policyHolder.getId(), request);
-            
-            uploadClaimDocuments(claim, billDocument, medicalReport, prescription, otherDocuments);
+            Claim claim = claimSubmissionService.submit(policyHolder.getId(), request,
+                    attachments(billDocument, medicalReport, prescription, otherDocuments));
             
             return ResponseEntity.ok(ApiResponse.success("Claim submitted successfully with documents", claim));
         } catch (Exception e) {
@@ -74,6 +81,38 @@ public class ClaimController {
         }
     }
 
+    /**
+     * Same form as submit-with-documents, but the files are streamed to storage as they are
+     * received instead of being buffered first. Suited to large scans and many attachments.
+     * The path is excluded from Spring's multipart handling in MultipartConfig.
+     */
+    @PostMapping(value = "/submit-with-documents/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('POLICY_HOLDER')")
+    public ResponseEntity<ApiResponse<Claim>> submitClaimWithDocumentsStreaming(HttpServletRequest request) {
+        try {
+            var user = authService.getCurrentUser();
+            PolicyHolder policyHolder = policyHolderService.getPolicyHolderByUser(user);
+
+            Claim claim = claimUploadService.submitStreaming(policyHolder.getId(), request, fields ->
+                    createClaimRequest(Long.valueOf(requiredField(fields, "policyId")),
+                            requiredField(fields, "claimDate"), requiredField(fields, "amountClaimed"),
+                            requiredField(fields, "description"), fields.get("medicalDiagnosis"),
+                            fields.get("hospitalName"), fields.get("treatmentDate")));
+
+            return ResponseEntity.ok(ApiResponse.success("Claim submitted successfully with documents", claim));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    private static String requiredField(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing required field: " + name);
+        }
+        return value;
+    }
+
     private ClaimRequest createClaimRequest(Long policyId, String claimDate, String amountClaimed, 
                                            String description, String medicalDiagnosis, String hospitalName, 
                                            String treatmentDate) {
@@ -90,36 +129,30 @@ public class ClaimController {
         return request;
     }
 
-    private void uploadClaimDocuments(Claim claim, MultipartFile billDocument, MultipartFile medicalReport,
-                                     MultipartFile prescription, List<MultipartFile> otherDocuments) {
+    private static List<ClaimSubmissionService.Attachment> attachments(MultipartFile billDocument,
+                                                                       MultipartFile medicalReport,
+                                                                       MultipartFile prescription,
+                                                                       List<MultipartFile> otherDocuments) {
+        List<ClaimSubmissionService.Attachment> attachments = new ArrayList<>();
         if (billDocument != null && !billDocument.isEmpty()) {
-            saveClaimDocument(claim, billDocument, ClaimDocument.DocumentType.BILL);
+            attachments.add(new ClaimSubmissionService.Attachment(billDocument, ClaimDocument.DocumentType.BILL));
         }
         if (medicalReport != null && !medicalReport.isEmpty()) {
-            saveClaimDocument(claim, medicalReport, ClaimDocument.DocumentType.MEDICAL_REPORT);
+            attachments.add(new ClaimSubmissionService.Attachment(medicalReport,
+                    ClaimDocument.DocumentType.MEDICAL_REPORT));
         }
         if (prescription != null && !prescription.isEmpty()) {
-            saveClaimDocument(claim, prescription, ClaimDocument.DocumentType.PRESCRIPTION);
+            attachments.add(new ClaimSubmissionService.Attachment(prescription,
+                    ClaimDocument.DocumentType.PRESCRIPTION));
         }
         if (otherDocuments != null && !otherDocuments.isEmpty()) {
             for (MultipartFile document : otherDocuments) {
                 if (!document.isEmpty()) {
-                    saveClaimDocument(claim, document, ClaimDocument.DocumentType.OTHER);
+                    attachments.add(new ClaimSubmissionService.Attachment(document, ClaimDocument.DocumentType.OTHER));
                 }
             }
         }
-    }
-
-    private void saveClaimDocument(Claim claim, MultipartFile file, ClaimDocument.DocumentType documentType) {
-        String filePath = fileStorageService.storeFile(file, CLAIM_DOCUMENTS_FOLDER);
-        ClaimDocument claimDoc = new ClaimDocument();
-        claimDoc.setClaim(claim);
-        claimDoc.setFileName(file.getOriginalFilename());
-        claimDoc.setFileUrl(filePath);
-        claimDoc.setFileType(file.getContentType());
-        claimDoc.setFileSize(file.getSize());
-        claimDoc.setDocumentType(documentType);
-        claimDocumentRepository.save(claimDoc);
+        return attachments;
     }
 
     @PostMapping("/{claimId}/upload-document")
@@ -130,17 +163,23 @@ public class ClaimController {
         try {
             Claim claim = claimService.getClaimById(claimId);
             
-            String filePath = fileStorageService.storeFile(file, CLAIM_DOCUMENTS_FOLDER);
+            FileStorageService.StoredFile stored = fileStorageService.store(file, CLAIM_DOCUMENTS_FOLDER);
             
             ClaimDocument claimDocument = new ClaimDocument();
             claimDocument.setClaim(claim);
             claimDocument.setFileName(file.getOriginalFilename());
-            claimDocument.setFileUrl(filePath);
-            claimDocument.setFileType(file.getContentType());
-            claimDocument.setFileSize(file.getSize());
-            claimDocument.setDocumentType(ClaimDocument.DocumentType.valueOf(documentType));
-            
-            claimDocumentRepository.save(claimDocument);
+            claimDocument.setFileUrl(stored.path());
+            claimDocument.setFileType(stored.contentType());
+            claimDocument.setFileSize(stored.size());
+            claimDocument.setChecksum(stored.checksum());
+            try {
+                claimDocument.setDocumentType(ClaimDocument.DocumentType.valueOf(documentType));
+                claimDocumentRepository.save(claimDocument);
+            } catch (RuntimeException e) {
+                // Not recorded, so drop the stored file again
+                fileStorageService.release(stored.path());
+                throw e;
+            }
             
             return ResponseEntity.ok(ApiResponse.success("Document uploaded successfully", claimDocument));
         } catch (Exception e) {
@@ -168,6 +207,22 @@ public class ClaimController {
         return ResponseEntity.ok(ApiResponse.success(claims));
     }
 
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CLAIMS_MANAGER', 'FINANCE_MANAGER')")
+    public ResponseEntity<ApiResponse<CursorPage<Claim>>> getClaimsPage(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<Claim> page = claimService.getClaimsPage(after, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonExportService.NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'CLAIMS_MANAGER', 'FINANCE_MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportClaims() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonExportService.NDJSON_MEDIA_TYPE))
+                .body(ndjsonExportService.export(claimService::getClaimsAfter, Claim::getId));
+    }
+
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'CLAIMS_MANAGER', 'FINANCE_MANAGER')")
     public ResponseEntity<ApiResponse<List<Claim>>> getClaimsByStatus(@PathVariable String status) {
@@ -1,15 +1,19 @@
 package com.virul.medisure.controller;
 
+import com.virul.medisure.dto.AgentDashboardStats;
 import com.virul.medisure.dto.CreateEmployeeRequest;
+import com.virul.medisure.dto.DoctorDashboardStats;
 import com.virul.medisure.dto.UpdateEmployeeRequest;
 import com.virul.medisure.model.*;
 import com.virul.medisure.repository.*;
 import com.virul.medisure.service.AppointmentService;
 import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.DashboardStatsService;
 import com.virul.medisure.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Controller;
@@ -26,7 +30,6 @@ import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -39,6 +42,7 @@ import java.util.stream.Stream;
 /**
  * Controller for dashboard pages with real-time data from database
  */
+@Slf4j
 @Controller
 @RequiredArgsConstructor
 public class DashboardController {
@@ -52,6 +56,7 @@ public class DashboardController {
     private final UserService userService;
     private final AppointmentService appointmentService;
     private final AuthService authService;
+    private final DashboardStatsService dashboardStatsService;
     
     /**
      * Redirect to appropriate dashboard based on user role
@@ -216,8 +221,7 @@ public class DashboardController {
             }
         } catch (Exception e) {
             // Log error but don't break the page - defaults are already set
-            System.err.println("Error loading dashboard data: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error loading dashboard data", e);
         }
         
         return "policyholder/dashboard";
@@ -279,7 +283,6 @@ public class DashboardController {
                 // Today's appointments
                 LocalDate today = LocalDate.now();
                 LocalTime now = LocalTime.now();
-                YearMonth currentMonth = YearMonth.from(today);
                 
                 List<Appointment> todayAppointments = appointmentRepository
                     .findByDoctorAndAppointmentDate(doctor, today)
@@ -300,62 +303,16 @@ public class DashboardController {
                 model.addAttribute("completedToday", completedToday);
                 model.addAttribute("upcomingToday", upcomingToday);
                 
-                // All appointments
-                List<Appointment> allAppointments = appointmentRepository.findByDoctor(doctor);
-                model.addAttribute("totalAppointments", allAppointments.size());
+                // Overall and monthly counts from aggregate queries and cached counters
+                DoctorDashboardStats stats = dashboardStatsService.getDoctorStats(doctor.getId());
+                model.addAttribute("totalAppointments", stats.getTotalAppointments());
+                model.addAttribute("scheduledAppointments", stats.getScheduledAppointments());
+                model.addAttribute("completedAppointments", stats.getCompletedAppointments());
+                model.addAttribute("appointmentsThisMonth", stats.getAppointmentsThisMonth());
+                model.addAttribute("completedThisMonth", stats.getCompletedThisMonth());
+                model.addAttribute("totalPatients", stats.getTotalPatients());
                 
-                // Scheduled appointments
-                long scheduledAppointments = allAppointments.stream()
-                    .filter(a -> a.getStatus() == Appointment.AppointmentStatus.PENDING ||
-                               a.getStatus() == Appointment.AppointmentStatus.SCHEDULED || 
-                               a.getStatus() == Appointment.AppointmentStatus.CONFIRMED)
-                    .filter(a -> a.getAppointmentDate().isAfter(LocalDate.now()) || 
-                               a.getAppointmentDate().equals(LocalDate.now()))
-                    .count();
-                model.addAttribute("scheduledAppointments", scheduledAppointments);
-                
-                // Completed appointments
-                long completedAppointments = allAppointments.stream()
-                    .filter(a -> a.getStatus() == Appointment.AppointmentStatus.COMPLETED)
-                    .count();
-                model.addAttribute("completedAppointments", completedAppointments);
-                
-                long appointmentsThisMonth = allAppointments.stream()
-                    .filter(a -> YearMonth.from(a.getAppointmentDate()).equals(currentMonth))
-                    .count();
-                model.addAttribute("appointmentsThisMonth", appointmentsThisMonth);
-                
-                long completedThisMonth = allAppointments.stream()
-                    .filter(a -> YearMonth.from(a.getAppointmentDate()).equals(currentMonth))
-                    .filter(a -> a.getStatus() == Appointment.AppointmentStatus.COMPLETED)
-                    .count();
-                model.addAttribute("completedThisMonth", completedThisMonth);
-                
-                // Unique patients
-                long uniquePatients = allAppointments.stream()
-                    .map(a -> a.getPolicyHolder().getId())
-                    .distinct()
-                    .count();
-                model.addAttribute("totalPatients", uniquePatients);
-                
-                List<Appointment> upcomingAppointments = allAppointments.stream()
-                    .filter(a -> a.getStatus() == Appointment.AppointmentStatus.PENDING ||
-                                 a.getStatus() == Appointment.AppointmentStatus.SCHEDULED ||
-                                 a.getStatus() == Appointment.AppointmentStatus.CONFIRMED)
-                    .filter(a -> {
-                        LocalDate date = a.getAppointmentDate();
-                        if (date.isAfter(today)) {
-                            return true;
-                        }
-                        if (date.equals(today)) {
-                            return !a.getAppointmentTime().isBefore(now);
-                        }
-                        return false;
-                    })
-                    .sorted(Comparator.comparing(Appointment::getAppointmentDate)
-                        .thenComparing(Appointment::getAppointmentTime))
-                    .limit(5)
-                    .collect(Collectors.toList());
+                List<Appointment> upcomingAppointments = dashboardStatsService.getUpcomingAppointments(doctor.getId(), 5);
                 model.addAttribute("upcomingAppointments", upcomingAppointments);
             }
         }
@@ -371,29 +328,21 @@ public class DashboardController {
         model.addAttribute("currentPath", request.getRequestURI());
         model.addAttribute("pageTitle", "Agent Dashboard");
         
+        AgentDashboardStats stats = dashboardStatsService.getAgentStats();
+        
         // Total active policy holders (as clients)
-        long totalClients = policyHolderRepository.findByStatus(PolicyHolder.PolicyStatus.ACTIVE).size();
-        model.addAttribute("totalClients", totalClients);
+        model.addAttribute("totalClients", stats.getActivePolicyHolders());
         
         // Total active policies
-        long activePolicies = policyHolderRepository.findByStatus(PolicyHolder.PolicyStatus.ACTIVE).size();
-        model.addAttribute("activePolicies", activePolicies);
+        model.addAttribute("activePolicies", stats.getActivePolicyHolders());
         
         // Calculate potential commission (5% of total premiums)
-        BigDecimal totalPremiums = policyHolderRepository.findByStatus(PolicyHolder.PolicyStatus.ACTIVE).stream()
-            .map(ph -> ph.getPolicy().getPremiumAmount())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal commission = totalPremiums.multiply(new BigDecimal("0.05"));
+        BigDecimal commission = stats.getActivePremiumTotal().multiply(new BigDecimal("0.05"));
         NumberFormat currencyFormat = NumberFormat.getNumberInstance(Locale.US);
         model.addAttribute("totalCommission", currencyFormat.format(commission));
         
         // Recent policies (this month)
-        long recentPolicies = policyHolderRepository.findByStatus(PolicyHolder.PolicyStatus.ACTIVE).stream()
-            .filter(ph -> ph.getCreatedAt().getMonth() == LocalDate.now().getMonth() &&
-                         ph.getCreatedAt().getYear() == LocalDate.now().getYear())
-            .count();
-        model.addAttribute("recentPolicies", recentPolicies);
+        model.addAttribute("recentPolicies", stats.getNewThisMonth());
         
         return "agent/dashboard";
     }
@@ -1063,13 +1012,10 @@ public class DashboardController {
         model.addAttribute("currentPath", request.getRequestURI());
         model.addAttribute("pageTitle", "My Profile");
         
-        if (authentication != null) {
-            Optional<User> userOpt = userRepository.findByEmail(authentication.getName());
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                model.addAttribute("user", user);
-                model.addAttribute("userRole", user.getRole());
-            }
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            User user = authService.getCurrentUserProfile();
+            model.addAttribute("user", user);
+            model.addAttribute("userRole", user.getRole());
         }
         
         return "profile";
@@ -1,11 +1,16 @@
 package com.virul.medisure.controller;
 
 import com.virul.medisure.dto.ApiResponse;
+import com.virul.medisure.dto.BlockedPeriodRequest;
 import com.virul.medisure.dto.DoctorRequest;
+import com.virul.medisure.dto.DoctorScheduleRequest;
 import com.virul.medisure.model.Appointment;
 import com.virul.medisure.model.Doctor;
+import com.virul.medisure.model.DoctorBlockedPeriod;
+import com.virul.medisure.model.DoctorSchedule;
 import com.virul.medisure.service.AppointmentService;
 import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.DoctorScheduleService;
 import com.virul.medisure.service.DoctorService;
 import com.virul.medisure.model.User;
 import com.virul.medisure.repository.DoctorRepository;
@@ -27,6 +32,7 @@ public class DoctorController {
     private final AppointmentService appointmentService;
     private final AuthService authService;
     private final DoctorRepository doctorRepository;
+    private final DoctorScheduleService doctorScheduleService;
 
     @GetMapping("/all")
     public ResponseEntity<ApiResponse<List<Doctor>>> getAllDoctors() {
@@ -126,4 +132,72 @@ public class DoctorController {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    @GetMapping("/{id}/schedule")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<ApiResponse<List<DoctorSchedule>>> getSchedule(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(doctorScheduleService.getWeeklySchedule(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}/schedule")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<ApiResponse<List<DoctorSchedule>>> updateSchedule(@PathVariable Long id,
+                                                                            @Valid @RequestBody List<DoctorScheduleRequest> request) {
+        try {
+            checkScheduleAccess(id);
+            List<DoctorSchedule> schedule = doctorScheduleService.replaceWeeklySchedule(id, request);
+            return ResponseEntity.ok(ApiResponse.success("Schedule updated", schedule));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/blocked-periods")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<ApiResponse<List<DoctorBlockedPeriod>>> getBlockedPeriods(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(doctorScheduleService.getUpcomingBlockedPeriods(id)));
+    }
+
+    @PostMapping("/{id}/blocked-periods")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<ApiResponse<DoctorBlockedPeriod>> addBlockedPeriod(@PathVariable Long id,
+                                                                             @Valid @RequestBody BlockedPeriodRequest request) {
+        try {
+            checkScheduleAccess(id);
+            DoctorBlockedPeriod period = doctorScheduleService.addBlockedPeriod(id, request);
+            return ResponseEntity.ok(ApiResponse.success("Period blocked", period));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}/blocked-periods/{periodId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'DOCTOR')")
+    public ResponseEntity<ApiResponse<Void>> removeBlockedPeriod(@PathVariable Long id, @PathVariable Long periodId) {
+        try {
+            checkScheduleAccess(id);
+            doctorScheduleService.removeBlockedPeriod(id, periodId);
+            return ResponseEntity.ok(ApiResponse.success("Blocked period removed", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Doctors may only change their own schedule; admins may change any
+     */
+    private void checkScheduleAccess(Long doctorId) {
+        User user = authService.getCurrentUser();
+        if (user.getRole() == User.UserRole.DOCTOR) {
+            Doctor doctor = doctorRepository.findByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Doctor profile not found"));
+            if (!doctor.getId().equals(doctorId)) {
+                throw new RuntimeException("You can only manage your own schedule");
+            }
+        }
+    }
 }
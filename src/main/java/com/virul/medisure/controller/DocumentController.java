@@ -0,0 +1,64 @@
+package com.virul.medisure.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.virul.medisure.dto.ApiResponse;
+import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.DocumentDownloadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Downloads of stored policy and claim documents, with Range and conditional GET support.
+ * HEAD requests are served by the same handlers. A document that cannot be served gets the
+ * usual ApiResponse error body, like the other /api endpoints.
+ */
+@RestController
+@RequestMapping("/api/documents")
+@RequiredArgsConstructor
+public class DocumentController {
+
+    private final AuthService authService;
+    private final DocumentDownloadService documentDownloadService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/policy/{documentId}")
+    @PreAuthorize("hasAnyRole('POLICY_HOLDER', 'ADMIN', 'POLICY_MANAGER')")
+    public void downloadPolicyDocument(@PathVariable Long documentId, HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        var user = authService.getCurrentUser();
+        serve(() -> documentDownloadService.getPolicyDocument(documentId, user), request, response);
+    }
+
+    @GetMapping("/claim/{documentId}")
+    @PreAuthorize("hasAnyRole('POLICY_HOLDER', 'ADMIN', 'CLAIMS_MANAGER', 'FINANCE_MANAGER')")
+    public void downloadClaimDocument(@PathVariable Long documentId, HttpServletRequest request,
+                                      HttpServletResponse response) throws IOException {
+        var user = authService.getCurrentUser();
+        serve(() -> documentDownloadService.getClaimDocument(documentId, user), request, response);
+    }
+
+    private void serve(Supplier<DocumentDownloadService.StoredDocument> lookup, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        DocumentDownloadService.StoredDocument document;
+        try {
+            document = lookup.get();
+        } catch (ResponseStatusException e) {
+            response.setStatus(e.getStatusCode().value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(e.getReason()));
+            return;
+        }
+        documentDownloadService.serve(document, request, response);
+    }
+}
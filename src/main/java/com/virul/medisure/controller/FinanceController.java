@@ -1,13 +1,17 @@
 package com.virul.medisure.controller;
 
 import com.virul.medisure.dto.ApiResponse;
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.FinanceRecord;
 import com.virul.medisure.service.AuthService;
 import com.virul.medisure.service.FinanceService;
+import com.virul.medisure.service.NdjsonExportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +24,7 @@ public class FinanceController {
 
     private final FinanceService financeService;
     private final AuthService authService;
+    private final NdjsonExportService ndjsonExportService;
 
     @PostMapping("/process-claim/{claimId}")
     public ResponseEntity<ApiResponse<FinanceRecord>> processClaim(@PathVariable Long claimId, 
@@ -46,6 +51,20 @@ public class FinanceController {
         return ResponseEntity.ok(ApiResponse.success(records));
     }
 
+    @GetMapping("/records/page")
+    public ResponseEntity<ApiResponse<CursorPage<FinanceRecord>>> getFinanceRecordsPage(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<FinanceRecord> page = financeService.getFinanceRecordsPage(after, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    @GetMapping(value = "/records/export", produces = NdjsonExportService.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportFinanceRecords() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonExportService.NDJSON_MEDIA_TYPE))
+                .body(ndjsonExportService.export(financeService::getFinanceRecordsAfter, FinanceRecord::getId));
+    }
+
     @GetMapping("/records/{id}")
     public ResponseEntity<ApiResponse<FinanceRecord>> getFinanceRecordById(@PathVariable Long id) {
         try {
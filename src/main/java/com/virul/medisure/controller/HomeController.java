@@ -1,10 +1,13 @@
 package com.virul.medisure.controller;
 
 import com.virul.medisure.model.Policy;
-import com.virul.medisure.repository.ClaimRepository;
-import com.virul.medisure.repository.PolicyRepository;
-import com.virul.medisure.repository.UserRepository;
+import com.virul.medisure.service.FragmentCache;
+import com.virul.medisure.service.LandingStatsService;
+import com.virul.medisure.service.PolicyService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,7 +15,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,9 +25,15 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class HomeController {
     
-    private final UserRepository userRepository;
-    private final PolicyRepository policyRepository;
-    private final ClaimRepository claimRepository;
+    private final PolicyService policyService;
+    private final LandingStatsService landingStatsService;
+    private final FragmentCache fragmentCache;
+    
+    @Value("${home.fragments.stats-ttl-ms:30000}")
+    private long statsTtlMs;
+    
+    @Value("${home.fragments.policies-ttl-ms:60000}")
+    private long policiesTtlMs;
     
     /**
      * Root path - show landing page or redirect to dashboard if authenticated
@@ -45,11 +53,11 @@ public class HomeController {
         }
         
         // Load statistics for the landing page
-        Map<String, Object> stats = getStatistics();
+        Map<String, Object> stats = landingStatsService.getStatistics();
         model.addAttribute("stats", stats);
         
         // Load active policies
-        List<Policy> policies = policyRepository.findByIsActive(true);
+        List<Policy> policies = policyService.getActivePolicies();
         model.addAttribute("policies", policies);
         
         return "index";
@@ -80,8 +88,33 @@ public class HomeController {
      */
     @GetMapping("/api/stats")
     @ResponseBody
-    public String getStatsFragment() {
-        Map<String, Object> stats = getStatistics();
+    public ResponseEntity<String> getStatsFragment() {
+        return fragmentResponse(fragmentCache.get(FragmentCache.STATS, statsTtlMs, this::renderStatsFragment));
+    }
+    
+    /**
+     * API endpoint for active policies (HTMX polling)
+     */
+    @GetMapping("/api/policies/active")
+    @ResponseBody
+    public ResponseEntity<String> getActivePoliciesFragment() {
+        return fragmentResponse(fragmentCache.get(FragmentCache.ACTIVE_POLICIES, policiesTtlMs, this::renderActivePoliciesFragment));
+    }
+    
+    /**
+     * Cached fragment with validators; a matching If-None-Match or If-Modified-Since gets a 304.
+     * no-cache makes browsers revalidate on every poll instead of reusing a stale copy.
+     */
+    private ResponseEntity<String> fragmentResponse(FragmentCache.Fragment fragment) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(fragment.etag())
+                .lastModified(fragment.lastModified())
+                .body(fragment.html());
+    }
+    
+    private String renderStatsFragment() {
+        Map<String, Object> stats = landingStatsService.getStatistics();
         
         return String.format("""
             <div class="grid grid-cols-1 sm:grid-cols-2 lg:grid-cols-4 gap-4 sm:gap-6 xl:gap-10 max-w-6xl mx-auto">
@@ -145,13 +178,8 @@ public class HomeController {
         );
     }
     
-    /**
-     * API endpoint for active policies (HTMX polling)
-     */
-    @GetMapping("/api/policies/active")
-    @ResponseBody
-    public String getActivePoliciesFragment() {
-        List<Policy> policies = policyRepository.findByIsActive(true);
+    private String renderActivePoliciesFragment() {
+        List<Policy> policies = policyService.getActivePolicies();
         
         StringBuilder html = new StringBuilder();
         
@@ -238,31 +266,4 @@ public class HomeController {
         
         return html.toString();
     }
-    
-    /**
-     * Helper method to get statistics from database
-     * Returns REAL data only - no fallback placeholders
-     */
-    private Map<String, Object> getStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        
-        // Total registered users - PURE DATABASE COUNT
-        long totalUsers = userRepository.count();
-        stats.put("totalUsers", totalUsers);
-        
-        // Active policy holders (users with role POLICY_HOLDER) - PURE DATABASE COUNT
-        long activePolicyHolders = userRepository.countByRole(com.virul.medisure.model.User.UserRole.POLICY_HOLDER);
-        stats.put("activePolicyHolders", activePolicyHolders);
-        
-        // Total policies issued - PURE DATABASE COUNT
-        long totalPolicies = policyRepository.count();
-        stats.put("totalPolicies", totalPolicies);
-        
-        // Approved claims (APPROVED_BY_FINANCE status) - PURE DATABASE COUNT
-        long approvedClaims = claimRepository.countByStatus(com.virul.medisure.model.Claim.ClaimStatus.APPROVED_BY_FINANCE);
-        stats.put("approvedClaims", approvedClaims);
-        
-        return stats;
-    }
 }
-
@@ -1,15 +1,23 @@
 package com.virul.medisure.controller;
 
 import com.virul.medisure.dto.ApiResponse;
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.Payment;
+import com.virul.medisure.model.User;
 import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.NdjsonExportService;
 import com.virul.medisure.service.PaymentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -18,6 +26,7 @@ public class PaymentController {
 
     private final PaymentService paymentService;
     private final AuthService authService;
+    private final NdjsonExportService ndjsonExportService;
 
     @GetMapping("/my-payments")
     @PreAuthorize("hasAnyRole('USER', 'POLICY_HOLDER')")
@@ -38,6 +47,22 @@ public class PaymentController {
         return ResponseEntity.ok(ApiResponse.success(payments));
     }
 
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FINANCE_MANAGER')")
+    public ResponseEntity<ApiResponse<CursorPage<Payment>>> getPaymentsPage(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<Payment> page = paymentService.getPaymentsPage(after, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonExportService.NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'FINANCE_MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportPayments() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonExportService.NDJSON_MEDIA_TYPE))
+                .body(ndjsonExportService.export(paymentService::getPaymentsAfter, Payment::getId));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'FINANCE_MANAGER', 'USER', 'POLICY_HOLDER')")
     public ResponseEntity<ApiResponse<Payment>> getPaymentById(@PathVariable Long id) {
@@ -49,6 +74,33 @@ public class PaymentController {
         }
     }
 
+    /**
+     * Poll the outcome of an asynchronously processed payment
+     */
+    @GetMapping("/{id}/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'FINANCE_MANAGER', 'USER', 'POLICY_HOLDER')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPaymentStatus(@PathVariable Long id) {
+        try {
+            var user = authService.getCurrentUser();
+            Payment payment = paymentService.getPaymentById(id);
+            boolean staff = user.getRole() == User.UserRole.ADMIN || user.getRole() == User.UserRole.FINANCE_MANAGER;
+            if (!staff && !payment.getUser().getId().equals(user.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.error("Access denied"));
+            }
+            
+            Map<String, Object> status = new HashMap<>();
+            status.put("paymentId", payment.getId());
+            status.put("transactionId", payment.getTransactionId());
+            status.put("status", payment.getStatus());
+            status.put("fulfilmentPending", Boolean.TRUE.equals(payment.getFulfilmentPending()));
+            status.put("policyHolderId", payment.getPolicyHolder() != null ? payment.getPolicyHolder().getId() : null);
+            status.put("updatedAt", payment.getUpdatedAt());
+            return ResponseEntity.ok(ApiResponse.success(status));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/transaction/{transactionId}")
     public ResponseEntity<ApiResponse<Payment>> getPaymentByTransactionId(@PathVariable String transactionId) {
         try {
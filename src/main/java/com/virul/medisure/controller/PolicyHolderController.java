@@ -4,18 +4,23 @@ import com.virul.medisure.dto.ApiResponse;
 import com.virul.medisure.model.Payment;
 import com.virul.medisure.model.PolicyDocument;
 import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.model.User;
 import com.virul.medisure.service.AuthService;
+import com.virul.medisure.service.CertificateBatchService;
+import com.virul.medisure.service.DocumentDownloadService;
 import com.virul.medisure.service.PolicyDocumentService;
+import com.virul.medisure.service.PolicyExpiryJob;
 import com.virul.medisure.service.PolicyHolderService;
-import com.virul.medisure.service.PdfService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,8 +34,10 @@ public class PolicyHolderController {
 
     private final PolicyHolderService policyHolderService;
     private final AuthService authService;
-    private final PdfService pdfService;
     private final PolicyDocumentService policyDocumentService;
+    private final CertificateBatchService certificateBatchService;
+    private final DocumentDownloadService documentDownloadService;
+    private final PolicyExpiryJob policyExpiryJob;
 
     @GetMapping("/current-user")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getCurrentUser() {
@@ -53,33 +60,17 @@ public class PolicyHolderController {
         try {
             var user = authService.getCurrentUser();
             
-            // Purchase the policy and process payment
-            Map<String, Object> result = policyHolderService.purchasePolicyWithPayment(user.getId(), policyId);
-            
-            PolicyHolder policyHolder = (PolicyHolder) result.get("policyHolder");
-            Payment payment = (Payment) result.get("payment");
-            
-            // Generate PDF document
-            String pdfPath = pdfService.generatePolicyDocument(policyHolder);
-            policyHolder.setPolicyDocumentUrl(pdfPath);
-            
-            // Save document to database
-            String fileName = "Policy_Certificate_" + policyHolder.getId() + ".pdf";
-            policyDocumentService.saveDocument(
-                policyHolder,
-                fileName,
-                pdfPath,
-                com.virul.medisure.model.PolicyDocument.DocumentType.POLICY_CERTIFICATE,
-                "Policy certificate for " + policyHolder.getPolicy().getName()
-            );
+            // Create the payment; the policy is issued in the background once it succeeds
+            Payment payment = policyHolderService.startPolicyPurchase(user.getId(), policyId);
             
             // Prepare response
             Map<String, Object> response = new HashMap<>();
-            response.put("policyHolder", policyHolder);
             response.put("payment", payment);
-            response.put("message", "Policy purchased successfully! Payment processed.");
+            response.put("statusUrl", "/api/payments/" + payment.getId() + "/status");
+            response.put("message", "Payment submitted. Your policy will be issued once it is processed.");
             
-            return ResponseEntity.ok(ApiResponse.success("Policy purchased successfully", response));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Payment submitted", response));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -201,14 +192,14 @@ public class PolicyHolderController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> deactivateExpiredPolicies() {
         try {
             var user = authService.getCurrentUser();
-            List<PolicyHolder> expiredPolicies = policyHolderService.deactivateExpiredPolicies(user.getEmail());
+            PolicyExpiryJob.ExpiryReport report = policyExpiryJob.run(user.getEmail());
             
             Map<String, Object> response = new HashMap<>();
-            response.put("count", expiredPolicies.size());
-            response.put("expiredPolicies", expiredPolicies);
+            response.put("count", report.expired());
+            response.put("report", report);
             
             return ResponseEntity.ok(ApiResponse.success(
-                expiredPolicies.size() + " expired policies have been deactivated", 
+                report.expired() + " expired policies have been deactivated", 
                 response
             ));
         } catch (Exception e) {
@@ -216,17 +207,49 @@ public class PolicyHolderController {
         }
     }
 
+    /**
+     * Start rendering certificates for every holder in the status; poll statusUrl for progress
+     */
+    @PostMapping("/certificates/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'POLICY_MANAGER')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> renderCertificates(
+            @RequestParam(defaultValue = "ACTIVE") PolicyHolder.PolicyStatus status) {
+        try {
+            CertificateBatchService.BatchJob job = certificateBatchService.startBatch(status);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("job", job);
+            response.put("statusUrl", "/api/policy-holder/certificates/batch/" + job.id());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Certificate batch started", response));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/certificates/batch/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'POLICY_MANAGER')")
+    public ResponseEntity<ApiResponse<CertificateBatchService.BatchJob>> getCertificateBatch(@PathVariable String jobId) {
+        return certificateBatchService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Certificate batch not found")));
+    }
+
     @GetMapping("/statistics")
     @PreAuthorize("hasAnyRole('ADMIN', 'POLICY_MANAGER')")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getPolicyStatistics() {
         try {
+            // One GROUP BY round-trip; active and total counts are derived from it
             Map<PolicyHolder.PolicyStatus, Long> statusCounts = policyHolderService.getPolicyCountByStatus();
-            long activeCount = policyHolderService.getActivePolicyCount();
+            long activeCount = statusCounts.get(PolicyHolder.PolicyStatus.ACTIVE);
+            long totalPolicyHolders = statusCounts.values().stream().mapToLong(Long::longValue).sum();
             
             Map<String, Object> statistics = new HashMap<>();
             statistics.put("activeCount", activeCount);
             statistics.put("statusCounts", statusCounts);
-            statistics.put("totalPolicyHolders", policyHolderService.getAllPolicyHolders().size());
+            statistics.put("totalPolicyHolders", totalPolicyHolders);
             
             return ResponseEntity.ok(ApiResponse.success(statistics));
         } catch (Exception e) {
@@ -249,26 +272,42 @@ public class PolicyHolderController {
 
     @GetMapping("/documents/{documentId}/download")
     @PreAuthorize("hasRole('POLICY_HOLDER')")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable Long documentId) {
+    public void downloadDocument(@PathVariable Long documentId, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        // Kept for existing links; same behaviour as /api/documents/policy/{documentId}
+        var user = authService.getCurrentUser();
+        DocumentDownloadService.StoredDocument document;
+        try {
+            document = documentDownloadService.getPolicyDocument(documentId, user);
+        } catch (ResponseStatusException e) {
+            response.setStatus(e.getStatusCode().value());
+            return;
+        }
+        documentDownloadService.serve(document, request, response);
+    }
+
+    @GetMapping("/documents/{documentId}/status")
+    @PreAuthorize("hasAnyRole('POLICY_HOLDER', 'ADMIN', 'POLICY_MANAGER')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDocumentStatus(@PathVariable Long documentId) {
         try {
             var user = authService.getCurrentUser();
-            PolicyHolder policyHolder = policyHolderService.getPolicyHolderByUser(user);
             PolicyDocument document = policyDocumentService.getDocumentById(documentId);
-            
-            // Verify document belongs to current user
-            if (!document.getPolicyHolder().getId().equals(policyHolder.getId())) {
-                return ResponseEntity.status(403).build();
+
+            boolean staff = user.getRole() == User.UserRole.ADMIN || user.getRole() == User.UserRole.POLICY_MANAGER;
+            if (!staff && !document.getPolicyHolder().getUser().getId().equals(user.getId())) {
+                return ResponseEntity.status(403).body(ApiResponse.error("Access denied"));
             }
-            
-            Resource resource = policyDocumentService.getDocumentAsResource(document);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"" + document.getFileName() + "\"")
-                    .body(resource);
+
+            Map<String, Object> status = new HashMap<>();
+            status.put("documentId", document.getId());
+            status.put("status", document.isReady() ? PolicyDocument.DocumentStatus.READY : document.getStatus());
+            status.put("fileName", document.getFileName());
+            status.put("fileSize", document.getFileSize());
+            status.put("attempts", document.getGenerationAttempts());
+            status.put("failureReason", document.getFailureReason());
+            return ResponseEntity.ok(ApiResponse.success(status));
         } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
 
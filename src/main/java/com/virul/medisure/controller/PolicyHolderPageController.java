@@ -12,6 +12,7 @@ import com.virul.medisure.service.AppointmentService;
 import com.virul.medisure.service.PolicyHolderService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -34,6 +35,7 @@ import java.util.Optional;
 /**
  * Controller for policyholder-specific pages (Thymeleaf views)
  */
+@Slf4j
 @Controller
 @RequestMapping("/policyholder")
 @RequiredArgsConstructor
@@ -189,8 +191,7 @@ public class PolicyHolderPageController {
             bindingResult.reject("bookingError", ex.getMessage());
         } catch (Exception e) {
             // Log the actual error for debugging
-            System.err.println("Appointment booking error: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Appointment booking error", e);
             bindingResult.reject("bookingError", "We could not book your appointment at this time. Error: " + e.getMessage());
         }
 
@@ -208,7 +209,6 @@ public class PolicyHolderPageController {
         model.addAttribute("availableDoctors", doctors);
         model.addAttribute("appointmentRequest", appointmentRequest);
         model.addAttribute("minDate", LocalDate.now());
-        model.addAttribute("defaultTime", LocalTime.of(9, 0));
         if (!model.containsAttribute("globalErrors")) {
             model.addAttribute("globalErrors", List.of());
         }
@@ -3,13 +3,16 @@ package com.virul.medisure.controller;
 import com.virul.medisure.dto.*;
 import com.virul.medisure.model.Ticket;
 import com.virul.medisure.model.User;
+import com.virul.medisure.service.NdjsonExportService;
 import com.virul.medisure.service.TicketService;
 import com.virul.medisure.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
@@ -20,6 +23,7 @@ public class TicketController {
     
     private final TicketService ticketService;
     private final UserService userService;
+    private final NdjsonExportService ndjsonExportService;
     
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'POLICY_HOLDER', 'ADMIN')")
@@ -68,6 +72,22 @@ public class TicketController {
         }
     }
     
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATION_MANAGER', 'CUSTOMER_SUPPORT_OFFICER')")
+    public ResponseEntity<ApiResponse<CursorPage<TicketResponse>>> getTicketsPage(@RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPage<TicketResponse> page = ticketService.getTicketsPage(after, size);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+    
+    @GetMapping(value = "/export", produces = NdjsonExportService.NDJSON_MEDIA_TYPE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'OPERATION_MANAGER', 'CUSTOMER_SUPPORT_OFFICER')")
+    public ResponseEntity<StreamingResponseBody> exportTickets() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonExportService.NDJSON_MEDIA_TYPE))
+                .body(ndjsonExportService.export(ticketService::getTicketResponsesAfter, TicketResponse::getId));
+    }
+    
     @PutMapping("/{id}/assign")
     @PreAuthorize("hasAnyRole('CUSTOMER_SUPPORT_OFFICER', 'ADMIN')")
     public ResponseEntity<ApiResponse<TicketResponse>> assignTicket(@PathVariable Long id, @RequestBody Map<String, Long> request) {
@@ -0,0 +1,17 @@
+package com.virul.medisure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgentDashboardStats {
+    
+    private long activePolicyHolders;
+    private BigDecimal activePremiumTotal;
+    private long newThisMonth;
+}
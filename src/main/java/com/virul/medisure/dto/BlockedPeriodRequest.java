@@ -0,0 +1,22 @@
+package com.virul.medisure.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockedPeriodRequest {
+    
+    @NotNull(message = "Start is required")
+    private LocalDateTime startsAt;
+    
+    @NotNull(message = "End is required")
+    private LocalDateTime endsAt;
+    
+    private String reason;
+}
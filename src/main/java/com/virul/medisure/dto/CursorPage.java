@@ -0,0 +1,45 @@
+package com.virul.medisure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) paginated listing.
+ * Pass nextCursor back as the "after" parameter to fetch the following page;
+ * it is null when there are no more rows.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    public static final int MAX_SIZE = 200;
+    
+    private List<T> items;
+    private Long nextCursor;
+    private int size;
+    
+    /**
+     * Build a page from a query that was asked for size + 1 rows; the extra row
+     * only signals that another page exists and is not returned.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, rows.size());
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, idOf.apply(items.get(size - 1)), size);
+    }
+    
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+    
+    public static long startAfter(Long after) {
+        return after != null ? after : 0L;
+    }
+}
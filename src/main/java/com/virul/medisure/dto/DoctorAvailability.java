@@ -0,0 +1,26 @@
+package com.virul.medisure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A doctor found by the free-slot search, with the slots still free in the searched days
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorAvailability {
+
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private LocalDateTime nextFreeSlot;
+    private Map<LocalDate, List<LocalTime>> freeSlots;
+}
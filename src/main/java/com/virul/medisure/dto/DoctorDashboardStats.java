@@ -0,0 +1,18 @@
+package com.virul.medisure.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorDashboardStats {
+    
+    private long totalAppointments;
+    private long completedAppointments;
+    private long scheduledAppointments;
+    private long appointmentsThisMonth;
+    private long completedThisMonth;
+    private long totalPatients;
+}
@@ -0,0 +1,33 @@
+package com.virul.medisure.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorScheduleRequest {
+    
+    @NotNull(message = "Day of week is required")
+    private DayOfWeek dayOfWeek;
+    
+    @DateTimeFormat(pattern = "HH:mm")
+    private LocalTime startTime;
+    
+    @DateTimeFormat(pattern = "HH:mm")
+    private LocalTime endTime;
+    
+    @Min(value = 5, message = "Slots must be at least 5 minutes long")
+    @Max(value = 240, message = "Slots can be at most 240 minutes long")
+    private Integer slotMinutes;
+    
+    private boolean working = true;
+}
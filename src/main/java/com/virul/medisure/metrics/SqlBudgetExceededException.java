@@ -0,0 +1,12 @@
+package com.virul.medisure.metrics;
+
+/**
+ * Thrown after a request that ran more SQL statements than its budget, when
+ * sql.budget.fail-on-exceed is set
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,174 @@
+package com.virul.medisure.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts and times the SQL statements of every request and holds each endpoint to a statement
+ * budget. Counts and time are recorded per endpoint (method and URI pattern) as
+ * medisure.http.sql.statements and medisure.http.sql.time; a request over its budget is logged
+ * with its most repeated statements and counted in medisure.http.sql.budget.exceeded.
+ * With sql.budget.fail-on-exceed the response is buffered until the count is known, so an
+ * over-budget request fails with SqlBudgetExceededException (a 500) instead of the response
+ * it would have sent, e.g. to surface N+1 regressions in a load test run. Document downloads
+ * and the streamed exports are never buffered, which would hold whole files in memory and keep
+ * a download's Content-Length from reaching the client, so they are counted but never failed.
+ * Requests that go asynchronous are likewise only counted up to their first dispatch.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute holding the request's SqlStatementStats once the request is done
+     */
+    public static final String STATS_ATTRIBUTE = SqlBudgetFilter.class.getName() + ".stats";
+
+    private static final List<String> UNBUFFERED_PATHS = List.of("/api/documents/**", "/api/**/export");
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final Map<String, Integer> endpointBudgets;
+    private final boolean failOnExceed;
+
+    public SqlBudgetFilter(SqlStatementCounter counter, MeterRegistry meterRegistry,
+                           @Value("${sql.budget.max-statements:30}") int maxStatements,
+                           @Value("${sql.budget.endpoints:}") String endpointBudgets,
+                           @Value("${sql.budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.endpointBudgets = parseBudgets(endpointBudgets);
+        this.failOnExceed = failOnExceed;
+    }
+
+    /**
+     * "GET /admin/claims=60, GET /doctor/dashboard=40" to a map of endpoint to budget
+     */
+    private static Map<String, Integer> parseBudgets(String budgets) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : budgets.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected 'METHOD /pattern=budget' in sql.budget.endpoints, got: " + entry);
+            }
+            parsed.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // The buffered body of an asynchronous request is written out on its last dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                copyBody(request, response);
+            }
+            return;
+        }
+
+        boolean buffered = failOnExceed && isBufferable(request);
+        HttpServletResponse target = buffered ? new ContentCachingResponseWrapper(response) : response;
+        SqlStatementStats stats = counter.begin();
+        try {
+            chain.doFilter(request, target);
+        } finally {
+            counter.end();
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+        }
+        String exceeded = check(request, stats);
+        if (exceeded != null && buffered && !request.isAsyncStarted()) {
+            // Drop the buffered response, so the error is what the client gets
+            response.reset();
+            throw new SqlBudgetExceededException(exceeded);
+        }
+        copyBody(request, target);
+    }
+
+    private static boolean isBufferable(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return UNBUFFERED_PATHS.stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    private static void copyBody(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        ContentCachingResponseWrapper buffered = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (buffered != null) {
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Record the request's statements; returns the message if it went over its budget
+     */
+    private String check(HttpServletRequest request, SqlStatementStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String endpoint = request.getMethod() + " " + uri;
+        long millis = TimeUnit.NANOSECONDS.toMillis(stats.getExecutionNanos());
+
+        DistributionSummary.builder("medisure.http.sql.statements")
+                .description("SQL statements run per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("medisure.http.sql.time")
+                .description("Time spent executing SQL per request")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+        log.debug("{}: {} SQL statements in {} ms", endpoint, stats.getStatements(), millis);
+
+        int budget = endpointBudgets.getOrDefault(endpoint, maxStatements);
+        if (stats.getStatements() <= budget) {
+            return null;
+        }
+        Counter.builder("medisure.http.sql.budget.exceeded")
+                .description("Requests that ran more SQL statements than their budget")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .increment();
+        String message = endpoint + " ran " + stats.getStatements() + " SQL statements in " + millis
+                + " ms, over its budget of " + budget + ". Most repeated: " + stats.mostRepeated(3);
+        log.warn(message);
+        return message;
+    }
+}
@@ -0,0 +1,52 @@
+package com.virul.medisure.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * SQL statements run while serving one request: how many, how long they took and how often
+ * each distinct statement came up, which is what gives an N+1 load away
+ */
+public class SqlStatementStats {
+
+    // Distinct statements tracked per request; the count and time cover all of them regardless
+    private static final int MAX_DISTINCT = 100;
+
+    private int statements;
+    private long executionNanos;
+    private final Map<String, Integer> repeats = new HashMap<>();
+
+    void statement(String sql) {
+        statements++;
+        if (repeats.size() < MAX_DISTINCT || repeats.containsKey(sql)) {
+            repeats.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void executed(long nanos) {
+        executionNanos += nanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    /**
+     * The statements that ran more than once, most frequent first, as "count x sql"
+     */
+    public String mostRepeated(int limit) {
+        String repeated = repeats.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("; "));
+        return repeated.isEmpty() ? "none" : repeated;
+    }
+}
@@ -0,0 +1,40 @@
+package com.virul.medisure.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the JDBC execution time of a session's statements to the current request's
+ * SqlStatementStats. Hibernate creates one per session, by class name.
+ */
+public class SqlTimingListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batchStart);
+    }
+
+    private static void record(long start) {
+        SqlStatementStats stats = SqlStatementCounter.current();
+        if (stats != null) {
+            stats.executed(System.nanoTime() - start);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.virul.medisure.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -12,7 +13,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments",
+       uniqueConstraints = @UniqueConstraint(name = "uk_appointments_reserved_slot",
+                                             columnNames = {"doctor_id", "appointment_date", "reserved_slot"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +43,15 @@ public class Appointment {
     @Column(name = "appointment_time", nullable = false)
     private LocalTime appointmentTime;
     
+    /**
+     * Minute of the day of the slot this appointment holds; unique per doctor and date, so
+     * two bookings of one slot cannot both commit. Cleared when the appointment is cancelled
+     * or rejected so the slot can be booked again.
+     */
+    @JsonIgnore
+    @Column(name = "reserved_slot")
+    private Integer reservedSlot;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private AppointmentStatus status;
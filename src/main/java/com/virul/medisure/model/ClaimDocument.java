@@ -38,6 +38,9 @@ public class ClaimDocument {
     @Column(name = "file_size")
     private Long fileSize;
     
+    @Column(name = "checksum", length = 64)
+    private String checksum;
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "document_type", nullable = false)
     private DocumentType documentType;
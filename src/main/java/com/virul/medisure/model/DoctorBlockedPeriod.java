@@ -0,0 +1,44 @@
+package com.virul.medisure.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * A period in which a doctor takes no appointments (leave, conference, ...).
+ * Slots overlapping it are not offered or bookable.
+ */
+@Entity
+@Table(name = "doctor_blocked_periods",
+       indexes = @Index(name = "idx_blocked_periods_doctor_start", columnList = "doctor_id, starts_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorBlockedPeriod {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @JsonIgnore
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+    
+    @Column(name = "starts_at", nullable = false)
+    private LocalDateTime startsAt;
+    
+    @Column(name = "ends_at", nullable = false)
+    private LocalDateTime endsAt;
+    
+    private String reason;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
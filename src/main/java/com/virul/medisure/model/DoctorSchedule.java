@@ -0,0 +1,53 @@
+package com.virul.medisure.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * A doctor's working hours on one day of the week, split into bookable slots of
+ * slotMinutes starting at startTime. Days without a row use the configured default hours.
+ */
+@Entity
+@Table(name = "doctor_schedules",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"doctor_id", "day_of_week"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DoctorSchedule {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @JsonIgnore
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", nullable = false)
+    private DayOfWeek dayOfWeek;
+    
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+    
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+    
+    @Column(name = "slot_minutes", nullable = false)
+    private Integer slotMinutes;
+    
+    /**
+     * Whether the doctor works at all on this day; a non-working day has no slots
+     */
+    @Column(name = "working", nullable = false)
+    private Boolean working = true;
+}
@@ -57,6 +57,10 @@ public class Payment {
     @Column(columnDefinition = "TEXT")
     private String description;
     
+    // Set with the gateway's answer, cleared once the PaymentCompletedEvent listeners have committed
+    @Column(name = "fulfilment_pending")
+    private Boolean fulfilmentPending = false;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
     
@@ -45,9 +45,34 @@ public class PolicyDocument {
     @Column(name = "description")
     private String description;
     
+    // SHA-256 of the file contents, hex encoded; served as the strong ETag
+    @Column(name = "checksum", length = 64)
+    private String checksum;
+    
     @Column(name = "uploaded_at")
     private LocalDateTime uploadedAt = LocalDateTime.now();
     
+    // Null on rows created before generation became asynchronous; treated as READY
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private DocumentStatus status = DocumentStatus.READY;
+    
+    @Column(name = "generation_attempts")
+    private Integer generationAttempts = 0;
+    
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+    
+    public boolean isReady() {
+        return status == null || status == DocumentStatus.READY;
+    }
+    
+    public enum DocumentStatus {
+        GENERATING,
+        READY,
+        FAILED
+    }
+    
     public enum DocumentType {
         POLICY_CERTIFICATE,
         POLICY_TERMS,
@@ -11,7 +11,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "policy_holders")
+@Table(name = "policy_holders",
+       indexes = @Index(name = "idx_policy_holders_status_end_date", columnList = "status, end_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
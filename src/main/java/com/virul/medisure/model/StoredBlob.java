@@ -0,0 +1,40 @@
+package com.virul.medisure.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file in the content-addressed store, keyed by the SHA-256 of its contents.
+ * refCount is the number of document rows pointing at the file; once it has been zero
+ * for the grace period the file may be garbage-collected.
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+    
+    @Id
+    @Column(name = "checksum", length = 64)
+    private String checksum;
+    
+    @Column(name = "path", nullable = false)
+    private String path;
+    
+    @Column(name = "size", nullable = false)
+    private Long size;
+    
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+}
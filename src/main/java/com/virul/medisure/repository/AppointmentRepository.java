@@ -3,11 +3,15 @@ package com.virul.medisure.repository;
 import com.virul.medisure.model.Appointment;
 import com.virul.medisure.model.Doctor;
 import com.virul.medisure.model.PolicyHolder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,5 +27,48 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     List<Appointment> findByPolicyHolder(PolicyHolder policyHolder);
     
     List<Appointment> findByDoctorAndAppointmentDate(Doctor doctor, LocalDate appointmentDate);
+    
+    // Served by the (doctor_id, appointment_date, reserved_slot) unique index
+    @Query("SELECT a.appointmentTime FROM Appointment a WHERE a.doctor.id = :doctorId " +
+           "AND a.appointmentDate = :date AND a.status IN :statuses")
+    List<LocalTime> findTimesForDoctorOnDate(Long doctorId, LocalDate date,
+                                             Collection<Appointment.AppointmentStatus> statuses);
+    
+    @Query("SELECT a.doctor.id, a.appointmentDate, a.appointmentTime FROM Appointment a " +
+           "WHERE a.doctor.id IN :doctorIds AND a.appointmentDate BETWEEN :from AND :to AND a.status IN :statuses")
+    List<Object[]> findTimesForDoctorsBetween(Collection<Long> doctorIds, LocalDate from, LocalDate to,
+                                              Collection<Appointment.AppointmentStatus> statuses);
     List<Appointment> findByStatus(Appointment.AppointmentStatus status);
+    
+    @Query("SELECT a.status, COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId GROUP BY a.status")
+    List<Object[]> countByStatusForDoctor(Long doctorId);
+    
+    @Query("SELECT COALESCE(SUM(CASE WHEN a.status IN :openStatuses AND a.appointmentDate >= :today THEN 1 ELSE 0 END), 0) AS scheduled, " +
+           "COALESCE(SUM(CASE WHEN a.appointmentDate BETWEEN :monthStart AND :monthEnd THEN 1 ELSE 0 END), 0) AS thisMonth, " +
+           "COALESCE(SUM(CASE WHEN a.appointmentDate BETWEEN :monthStart AND :monthEnd AND a.status = :completed THEN 1 ELSE 0 END), 0) AS completedThisMonth, " +
+           "COUNT(DISTINCT a.policyHolder.id) AS patients " +
+           "FROM Appointment a WHERE a.doctor.id = :doctorId")
+    DoctorWindowCounts aggregateWindowForDoctor(Long doctorId,
+                                                Collection<Appointment.AppointmentStatus> openStatuses,
+                                                Appointment.AppointmentStatus completed,
+                                                LocalDate today,
+                                                LocalDate monthStart,
+                                                LocalDate monthEnd);
+    
+    @EntityGraph(attributePaths = {"policyHolder", "policyHolder.user"})
+    @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND a.status IN :statuses " +
+           "AND (a.appointmentDate > :today OR (a.appointmentDate = :today AND a.appointmentTime >= :now)) " +
+           "ORDER BY a.appointmentDate ASC, a.appointmentTime ASC")
+    List<Appointment> findUpcomingForDoctor(Long doctorId,
+                                            Collection<Appointment.AppointmentStatus> statuses,
+                                            LocalDate today,
+                                            LocalTime now,
+                                            Pageable pageable);
+    
+    interface DoctorWindowCounts {
+        Long getScheduled();
+        Long getThisMonth();
+        Long getCompletedThisMonth();
+        Long getPatients();
+    }
 }
@@ -1,6 +1,7 @@
 package com.virul.medisure.repository;
 
 import com.virul.medisure.model.AuditLog;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +13,5 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     List<AuditLog> findByEntityTypeAndEntityId(AuditLog.EntityType entityType, Long entityId);
     List<AuditLog> findByPerformedBy(String performedBy);
     List<AuditLog> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
+    List<AuditLog> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
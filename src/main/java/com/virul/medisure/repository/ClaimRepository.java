@@ -2,6 +2,8 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.Claim;
 import com.virul.medisure.model.PolicyHolder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +14,7 @@ public interface ClaimRepository extends JpaRepository<Claim, Long> {
     List<Claim> findByPolicyHolder(PolicyHolder policyHolder);
     List<Claim> findByStatus(Claim.ClaimStatus status);
     long countByStatus(Claim.ClaimStatus status);
+    
+    @EntityGraph(attributePaths = {"policyHolder", "policy"})
+    List<Claim> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -0,0 +1,26 @@
+package com.virul.medisure.repository;
+
+import com.virul.medisure.model.DoctorBlockedPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DoctorBlockedPeriodRepository extends JpaRepository<DoctorBlockedPeriod, Long> {
+    List<DoctorBlockedPeriod> findByDoctorIdAndEndsAtAfterOrderByStartsAtAsc(Long doctorId, LocalDateTime after);
+    
+    /**
+     * Blocked periods of the doctor overlapping [from, to)
+     */
+    @Query("SELECT b FROM DoctorBlockedPeriod b WHERE b.doctor.id = :doctorId " +
+           "AND b.startsAt < :to AND b.endsAt > :from")
+    List<DoctorBlockedPeriod> findOverlapping(Long doctorId, LocalDateTime from, LocalDateTime to);
+    
+    @Query("SELECT b FROM DoctorBlockedPeriod b WHERE b.doctor.id IN :doctorIds " +
+           "AND b.startsAt < :to AND b.endsAt > :from")
+    List<DoctorBlockedPeriod> findOverlappingForDoctors(Collection<Long> doctorIds, LocalDateTime from, LocalDateTime to);
+}
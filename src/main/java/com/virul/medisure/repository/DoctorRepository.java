@@ -2,7 +2,10 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.Doctor;
 import com.virul.medisure.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +17,15 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     List<Doctor> findBySpecialization(String specialization);
     Optional<Doctor> findByRegistrationNo(String registrationNo);
     Optional<Doctor> findByUser(User user);
+
+    @EntityGraph(attributePaths = {"user"})
+    @Query("SELECT d FROM Doctor d")
+    List<Doctor> findAllWithUser();
+
+    @EntityGraph(attributePaths = {"user"})
+    List<Doctor> findByIsAvailableTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"user"})
+    List<Doctor> findByIsAvailableTrueAndSpecializationIgnoreCaseAndIdGreaterThanOrderByIdAsc(String specialization,
+                                                                                            Long id, Limit limit);
 }
@@ -0,0 +1,25 @@
+package com.virul.medisure.repository;
+
+import com.virul.medisure.model.DoctorSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DoctorScheduleRepository extends JpaRepository<DoctorSchedule, Long> {
+    List<DoctorSchedule> findByDoctorIdOrderByDayOfWeekAsc(Long doctorId);
+    
+    Optional<DoctorSchedule> findByDoctorIdAndDayOfWeek(Long doctorId, DayOfWeek dayOfWeek);
+    
+    List<DoctorSchedule> findByDoctorIdIn(Collection<Long> doctorIds);
+    
+    @Modifying
+    @Query("DELETE FROM DoctorSchedule s WHERE s.doctor.id = :doctorId")
+    int deleteByDoctorId(Long doctorId);
+}
@@ -2,6 +2,8 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.FinanceRecord;
 import com.virul.medisure.model.Claim;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +13,7 @@ import java.util.List;
 public interface FinanceRecordRepository extends JpaRepository<FinanceRecord, Long> {
     List<FinanceRecord> findByClaim(Claim claim);
     List<FinanceRecord> findByStatus(FinanceRecord.FinanceStatus status);
+    
+    @EntityGraph(attributePaths = {"claim", "claim.policyHolder", "claim.policy", "financeManager"})
+    List<FinanceRecord> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -2,9 +2,15 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.Payment;
 import com.virul.medisure.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,5 +20,28 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByStatus(Payment.PaymentStatus status);
     Optional<Payment> findByTransactionId(String transactionId);
     List<Payment> findByUserOrderByCreatedAtDesc(User user);
+    
+    @EntityGraph(attributePaths = {"user", "policy", "policyHolder", "policyHolder.user"})
+    List<Payment> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    List<Payment> findByFulfilmentPendingTrue();
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.fulfilmentPending = true, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.status = com.virul.medisure.model.Payment.PaymentStatus.PENDING")
+    int recordGatewayResult(Long id, Payment.PaymentStatus to, LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.fulfilmentPending = false WHERE p.id = :id AND p.fulfilmentPending = true")
+    int claimFulfilment(Long id);
+    
+    @Query("SELECT p.paymentType FROM Payment p WHERE p.id = :id")
+    String findPaymentTypeById(Long id);
+    
+    @EntityGraph(attributePaths = {"user", "policy"})
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> findWithUserAndPolicyById(Long id);
 }
 
@@ -2,15 +2,23 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.PolicyDocument;
 import com.virul.medisure.model.PolicyHolder;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PolicyDocumentRepository extends JpaRepository<PolicyDocument, Long> {
     List<PolicyDocument> findByPolicyHolder(PolicyHolder policyHolder);
     List<PolicyDocument> findByPolicyHolderOrderByUploadedAtDesc(PolicyHolder policyHolder);
     List<PolicyDocument> findByPolicyHolder_IdOrderByUploadedAtDesc(Long policyHolderId);
+    List<PolicyDocument> findByStatus(PolicyDocument.DocumentStatus status);
+    
+    @EntityGraph(attributePaths = {"policyHolder", "policyHolder.user", "policyHolder.policy"})
+    @Query("SELECT d FROM PolicyDocument d WHERE d.id = :id")
+    Optional<PolicyDocument> findWithPolicyHolderById(Long id);
 }
 
@@ -2,9 +2,16 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.PolicyHolder;
 import com.virul.medisure.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +20,37 @@ public interface PolicyHolderRepository extends JpaRepository<PolicyHolder, Long
     Optional<PolicyHolder> findByUser(User user);
     List<PolicyHolder> findByUserRole(User.UserRole role);
     List<PolicyHolder> findByStatus(PolicyHolder.PolicyStatus status);
+
+    @EntityGraph(attributePaths = {"user", "policy"})
+    List<PolicyHolder> findByStatusAndIdGreaterThanOrderByIdAsc(PolicyHolder.PolicyStatus status, Long id, Limit limit);
+    long countByStatus(PolicyHolder.PolicyStatus status);
+    long countByStatusAndCreatedAtGreaterThanEqual(PolicyHolder.PolicyStatus status, LocalDateTime since);
+    
+    @Query("SELECT COUNT(ph) AS holders, COALESCE(SUM(p.premiumAmount), 0) AS premiums " +
+           "FROM PolicyHolder ph JOIN ph.policy p WHERE ph.status = :status")
+    StatusTotals totalsByStatus(PolicyHolder.PolicyStatus status);
+    
+    @Query("SELECT ph.status, COUNT(ph) FROM PolicyHolder ph GROUP BY ph.status")
+    List<Object[]> countGroupedByStatus();
+    
+    @Query("SELECT ph.id FROM PolicyHolder ph WHERE ph.status = :status AND ph.endDate <= :endDate " +
+           "AND ph.id > :after ORDER BY ph.id ASC")
+    List<Long> findIdsEndingBy(PolicyHolder.PolicyStatus status, LocalDate endDate, Long after, Limit limit);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PolicyHolder ph SET ph.status = :newStatus, ph.updatedAt = :updatedAt " +
+           "WHERE ph.status = :status AND ph.endDate <= :endDate AND ph.id > :after AND ph.id <= :upTo")
+    int updateStatusEndingBy(PolicyHolder.PolicyStatus status, PolicyHolder.PolicyStatus newStatus,
+                             LocalDate endDate, Long after, Long upTo, LocalDateTime updatedAt);
+    
+    @Query("SELECT ph.id, ph.endDate, p.name FROM PolicyHolder ph JOIN ph.policy p " +
+           "WHERE ph.id > :after AND ph.id <= :upTo AND ph.status = :status AND ph.updatedAt = :updatedAt " +
+           "ORDER BY ph.id ASC")
+    List<Object[]> findUpdatedBetween(Long after, Long upTo, PolicyHolder.PolicyStatus status,
+                                      LocalDateTime updatedAt);
+    
+    interface StatusTotals {
+        Long getHolders();
+        BigDecimal getPremiums();
+    }
 }
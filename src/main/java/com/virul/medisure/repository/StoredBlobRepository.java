@@ -0,0 +1,35 @@
+package com.virul.medisure.repository;
+
+import com.virul.medisure.model.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1, b.releasedAt = NULL WHERE b.checksum = :checksum")
+    int incrementRefCount(String checksum);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.releasedAt = :releasedAt " +
+           "WHERE b.checksum = :checksum AND b.refCount > 0")
+    int decrementRefCount(String checksum, LocalDateTime releasedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.checksum = :checksum AND b.refCount <= 0")
+    int deleteIfUnreferenced(String checksum);
+
+    List<StoredBlob> findByRefCountLessThanEqualAndReleasedAtBefore(Integer refCount, LocalDateTime releasedBefore);
+
+    long countByRefCountGreaterThan(Integer refCount);
+}
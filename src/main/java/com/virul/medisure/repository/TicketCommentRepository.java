@@ -3,8 +3,10 @@ package com.virul.medisure.repository;
 import com.virul.medisure.model.Ticket;
 import com.virul.medisure.model.TicketComment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +15,8 @@ public interface TicketCommentRepository extends JpaRepository<TicketComment, Lo
     List<TicketComment> findByTicketOrderByCreatedAtAsc(Ticket ticket);
     
     List<TicketComment> findByTicketAndIsInternalOrderByCreatedAtAsc(Ticket ticket, boolean isInternal);
+    
+    @Query("SELECT c FROM TicketComment c JOIN FETCH c.user " +
+           "WHERE c.ticket.id IN :ticketIds AND c.isInternal = false ORDER BY c.createdAt ASC")
+    List<TicketComment> findPublicByTicketIdIn(Collection<Long> ticketIds);
 }
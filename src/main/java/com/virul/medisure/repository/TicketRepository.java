@@ -2,6 +2,8 @@ package com.virul.medisure.repository;
 
 import com.virul.medisure.model.Ticket;
 import com.virul.medisure.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -18,12 +20,21 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     
     List<Ticket> findByStatus(Ticket.TicketStatus status);
     
+    @EntityGraph(attributePaths = {"user", "assignedTo"})
     @Query("SELECT t FROM Ticket t WHERE t.user = :user ORDER BY t.createdAt DESC")
     List<Ticket> findByUserOrderByCreatedAtDesc(User user);
     
+    @EntityGraph(attributePaths = {"user", "assignedTo"})
     @Query("SELECT t FROM Ticket t WHERE t.assignedTo = :assignedTo ORDER BY t.createdAt DESC")
     List<Ticket> findByAssignedToOrderByCreatedAtDesc(User assignedTo);
     
+    @EntityGraph(attributePaths = {"user", "assignedTo"})
+    @Query("SELECT t FROM Ticket t")
+    List<Ticket> findAllWithUsers();
+    
+    @EntityGraph(attributePaths = {"user", "assignedTo"})
+    List<Ticket> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = :status")
     long countByStatus(Ticket.TicketStatus status);
     
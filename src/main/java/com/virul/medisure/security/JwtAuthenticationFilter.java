@@ -1,6 +1,9 @@
 package com.virul.medisure.security;
 
+import com.virul.medisure.model.User;
 import com.virul.medisure.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,6 +22,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final JwtTokenCache tokenCache;
+    private final boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -26,22 +31,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String jwt = authorizationHeader.substring(7);
+            UserDetails userDetails = resolvePrincipal(jwt);
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                logger.error("JWT token is invalid: " + e.getMessage());
-            }
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userService.loadUserByUsername(username);
-
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -51,4 +46,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Principal for a token, from the cache when possible. A cache miss costs one
+     * signature verification, plus one user lookup unless stateless mode can build the
+     * principal from the claims.
+     */
+    private UserDetails resolvePrincipal(String jwt) {
+        UserDetails cached = tokenCache.get(jwt);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(jwt);
+        } catch (Exception e) {
+            logger.error("JWT token is invalid: " + e.getMessage());
+            return null;
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = stateless ? principalFromClaims(claims) : null;
+        } catch (JwtException e) {
+            logger.warn("JWT claims are invalid: " + e.getMessage());
+            return null;
+        }
+        if (userDetails == null) {
+            try {
+                userDetails = userService.loadUserByUsername(claims.getSubject());
+            } catch (Exception e) {
+                logger.warn("JWT subject could not be loaded: " + e.getMessage());
+                return null;
+            }
+        }
+
+        tokenCache.put(jwt, userDetails, claims.getExpiration().getTime());
+        return userDetails;
+    }
+
+    /**
+     * Principal from the claims alone, or null when the database has to be consulted:
+     * the token lacks the user id or role, or the user changed after it was issued.
+     */
+    private User principalFromClaims(Claims claims) {
+        User principal = jwtUtil.extractPrincipal(claims);
+        if (principal == null || tokenCache.isUserChangedSince(principal.getId(), claims.getIssuedAt())) {
+            return null;
+        }
+        return principal;
+    }
 }
@@ -0,0 +1,132 @@
+package com.virul.medisure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.virul.medisure.model.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified JWTs to the principal they authenticate.
+ * A hit lets JwtAuthenticationFilter skip both signature verification and the user lookup.
+ * Entries expire with the token, or after the configured TTL if that comes first, so role
+ * changes made outside UserService still take effect within the TTL. Once the cache is full
+ * Caffeine drops the entries least likely to be used again; lookups take no shared lock.
+ * Each request gets its own copy of a cached User, so nothing a request does to its principal
+ * leaks into the next one.
+ * It also remembers when each user was last changed, which stateless mode uses to decide
+ * when a token's claims can no longer be trusted without a database check.
+ */
+@Component
+public class JwtTokenCache {
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${jwt.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    private final Map<Long, Long> userChangedAt = new ConcurrentHashMap<>();
+
+    private Cache<String, Entry> entries;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Cached principal for the token, or null if it is unknown or has expired
+     */
+    public UserDetails get(String token) {
+        Entry entry = entries.getIfPresent(token);
+        return entry != null ? copyOf(entry.principal) : null;
+    }
+
+    /**
+     * Remember a verified token until tokenExpiresAt (epoch millis) or the TTL, whichever is sooner
+     */
+    public void put(String token, UserDetails principal, long tokenExpiresAt) {
+        long expiresAt = Math.min(tokenExpiresAt, System.currentTimeMillis() + ttlMs);
+        entries.put(token, new Entry(copyOf(principal), expiresAt));
+    }
+
+    /**
+     * Drop every cached token of a user and mark tokens issued so far as stale,
+     * e.g. after a role change or deletion
+     */
+    public void evictUser(Long userId) {
+        long now = System.currentTimeMillis();
+        userChangedAt.put(userId, now);
+        // Marks older than the token lifetime cannot match a live token
+        userChangedAt.values().removeIf(changedAt -> changedAt < now - tokenLifetimeMs);
+
+        entries.asMap().values().removeIf(entry -> entry.principal instanceof User user && user.getId().equals(userId));
+    }
+
+    /**
+     * Whether the user was changed at or after the token was issued. The iat claim has
+     * second precision, so a token issued in the same second as the change counts as stale.
+     */
+    public boolean isUserChangedSince(Long userId, Date issuedAt) {
+        Long changedAt = userChangedAt.get(userId);
+        return changedAt != null && (issuedAt == null || issuedAt.getTime() <= changedAt);
+    }
+
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * A detached copy of a User principal; other UserDetails are returned as they are
+     */
+    private static UserDetails copyOf(UserDetails principal) {
+        if (!(principal instanceof User user)) {
+            return principal;
+        }
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setFullName(user.getFullName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setRole(user.getRole());
+        copy.setPhone(user.getPhone());
+        copy.setDateOfBirth(user.getDateOfBirth());
+        copy.setAddress(user.getAddress());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+
+    private record Entry(UserDetails principal, long expiresAt) {
+    }
+}
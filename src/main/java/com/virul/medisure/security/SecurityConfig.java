@@ -2,6 +2,7 @@ package com.virul.medisure.security;
 
 import com.virul.medisure.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -29,11 +30,15 @@ public class SecurityConfig {
 
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final JwtTokenCache jwtTokenCache;
     private final PasswordEncoder passwordEncoder;
 
+    @Value("${jwt.stateless:false}")
+    private boolean statelessJwt;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtil, userService);
+        return new JwtAuthenticationFilter(jwtUtil, userService, jwtTokenCache, statelessJwt);
     }
 
     @Bean
@@ -46,6 +51,9 @@ public class SecurityConfig {
                 // Public API endpoints
                 .requestMatchers("/api/auth/**", "/h2-console/**", "/uploads/**").permitAll()
                 .requestMatchers("/api/policies/all", "/api/policies/active", "/api/stats").permitAll()
+                // Health checks; the other actuator endpoints, the Prometheus scrape included, are for admins
+                .requestMatchers("/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // Admin pages and APIs - allow all management roles
                 .requestMatchers("/admin/**").hasAnyRole("ADMIN", "OPERATION_MANAGER", "POLICY_MANAGER", "CLAIMS_MANAGER", "FINANCE_MANAGER", "MEDICAL_COORDINATOR", "CUSTOMER_SUPPORT_OFFICER")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -3,13 +3,19 @@ package com.virul.medisure.service;
 import com.virul.medisure.dto.AppointmentRequest;
 import com.virul.medisure.model.*;
 import com.virul.medisure.repository.AppointmentRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
+@Slf4j
 @Service
+@Timed("medisure.service")
 @RequiredArgsConstructor
 public class AppointmentService {
 
@@ -17,23 +23,29 @@ public class AppointmentService {
     private final PolicyHolderService policyHolderService;
     private final DoctorService doctorService;
     private final AuditLogService auditLogService;
+    private final DashboardStatsService dashboardStatsService;
+    private final DoctorSlotIndex doctorSlotIndex;
 
     public Appointment bookAppointment(Long policyHolderId, AppointmentRequest request) {
         PolicyHolder policyHolder = policyHolderService.getPolicyHolderById(policyHolderId);
         Doctor doctor = doctorService.getDoctorById(request.getDoctorId());
 
-        // No need to check time slots - premium and senior users can book any time
+        // Fails unless the time is a free slot of the doctor's schedule
+        int reservedSlot = doctorSlotIndex.reserve(doctor.getId(), request.getAppointmentDate(),
+                request.getAppointmentTime());
 
         Appointment appointment = new Appointment();
         appointment.setPolicyHolder(policyHolder);
         appointment.setDoctor(doctor);
         appointment.setAppointmentDate(request.getAppointmentDate());
         appointment.setAppointmentTime(request.getAppointmentTime());
+        appointment.setReservedSlot(reservedSlot);
         appointment.setStatus(Appointment.AppointmentStatus.PENDING);
         appointment.setReason(request.getReason());
         appointment.setNotes(request.getNotes());
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment = saveReserved(appointment);
+        dashboardStatsService.recordAppointmentChange(null, null, doctor.getId(), savedAppointment.getStatus());
         
         // Log the appointment booking with safe access to user data
         try {
@@ -48,7 +60,7 @@ public class AppointmentService {
             );
         } catch (Exception e) {
             // If audit logging fails, don't fail the appointment booking
-            System.err.println("Failed to log appointment booking: " + e.getMessage());
+            log.warn("Failed to log appointment booking: {}", e.getMessage());
         }
 
         return savedAppointment;
@@ -79,9 +91,25 @@ public class AppointmentService {
 
     public Appointment updateAppointmentStatus(Long id, Appointment.AppointmentStatus status) {
         Appointment appointment = getAppointmentById(id);
+        Appointment.AppointmentStatus previousStatus = appointment.getStatus();
+        boolean heldSlot = DoctorSlotIndex.HOLDING_STATUSES.contains(previousStatus);
+        boolean holdsSlot = DoctorSlotIndex.HOLDING_STATUSES.contains(status);
+        if (!heldSlot && holdsSlot) {
+            // Reinstated, e.g. a cancelled appointment: the slot must still be free, but may be past
+            appointment.setReservedSlot(doctorSlotIndex.reinstate(appointment.getDoctor().getId(),
+                    appointment.getAppointmentDate(), appointment.getAppointmentTime()));
+        } else if (heldSlot && !holdsSlot) {
+            appointment.setReservedSlot(null);
+        }
         appointment.setStatus(status);
 
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment = !heldSlot && holdsSlot
+                ? saveReserved(appointment) : appointmentRepository.save(appointment);
+        if (heldSlot && !holdsSlot) {
+            releaseSlot(appointment);
+        }
+        dashboardStatsService.recordAppointmentChange(
+            appointment.getDoctor().getId(), previousStatus, appointment.getDoctor().getId(), status);
         
         // Log the status update
         auditLogService.logAction(
@@ -115,6 +143,19 @@ public class AppointmentService {
         }
         
         Doctor doctor = doctorService.getDoctorById(request.getDoctorId());
+        Long previousDoctorId = appointment.getDoctor().getId();
+        Appointment.AppointmentStatus previousStatus = appointment.getStatus();
+        LocalDate previousDate = appointment.getAppointmentDate();
+        LocalTime previousTime = appointment.getAppointmentTime();
+        
+        // Moving to another slot takes the new one before giving up the old one
+        boolean slotChanged = !doctor.getId().equals(previousDoctorId)
+            || !request.getAppointmentDate().equals(previousDate)
+            || !request.getAppointmentTime().equals(previousTime);
+        if (slotChanged) {
+            appointment.setReservedSlot(doctorSlotIndex.reserve(doctor.getId(), request.getAppointmentDate(),
+                request.getAppointmentTime()));
+        }
         
         appointment.setDoctor(doctor);
         appointment.setAppointmentDate(request.getAppointmentDate());
@@ -124,7 +165,12 @@ public class AppointmentService {
         appointment.setStatus(Appointment.AppointmentStatus.PENDING); // Reset to pending on edit
         appointment.setUpdatedAt(java.time.LocalDateTime.now());
         
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment = slotChanged ? saveReserved(appointment) : appointmentRepository.save(appointment);
+        if (slotChanged) {
+            doctorSlotIndex.release(previousDoctorId, previousDate, previousTime);
+        }
+        dashboardStatsService.recordAppointmentChange(
+            previousDoctorId, previousStatus, doctor.getId(), savedAppointment.getStatus());
         
         // Log the update with safe access
         try {
@@ -138,7 +184,7 @@ public class AppointmentService {
                 "Appointment updated"
             );
         } catch (Exception e) {
-            System.err.println("Failed to log appointment update: " + e.getMessage());
+            log.warn("Failed to log appointment update: {}", e.getMessage());
         }
         
         return savedAppointment;
@@ -170,10 +216,13 @@ public class AppointmentService {
                 "Appointment deleted"
             );
         } catch (Exception e) {
-            System.err.println("Failed to log appointment deletion: " + e.getMessage());
+            log.warn("Failed to log appointment deletion: {}", e.getMessage());
         }
         
         appointmentRepository.delete(appointment);
+        releaseSlot(appointment);
+        dashboardStatsService.recordAppointmentChange(
+            appointment.getDoctor().getId(), appointment.getStatus(), null, null);
     }
 
     public Appointment acceptAppointment(Long appointmentId, Long doctorId) {
@@ -192,6 +241,8 @@ public class AppointmentService {
         appointment.setUpdatedAt(java.time.LocalDateTime.now());
         
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        dashboardStatsService.recordAppointmentChange(
+            doctorId, Appointment.AppointmentStatus.PENDING, doctorId, Appointment.AppointmentStatus.SCHEDULED);
         
         // Log the acceptance with safe access
         try {
@@ -205,7 +256,7 @@ public class AppointmentService {
                 "Appointment accepted by doctor"
             );
         } catch (Exception e) {
-            System.err.println("Failed to log appointment acceptance: " + e.getMessage());
+            log.warn("Failed to log appointment acceptance: {}", e.getMessage());
         }
         
         return savedAppointment;
@@ -224,11 +275,16 @@ public class AppointmentService {
             throw new RuntimeException("Only pending or scheduled appointments can be rejected");
         }
         
+        Appointment.AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(Appointment.AppointmentStatus.REJECTED);
+        appointment.setReservedSlot(null);
         appointment.setRejectionReason(rejectionReason);
         appointment.setUpdatedAt(java.time.LocalDateTime.now());
         
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        releaseSlot(appointment);
+        dashboardStatsService.recordAppointmentChange(
+            doctorId, previousStatus, doctorId, Appointment.AppointmentStatus.REJECTED);
         
         // Log the rejection with safe access
         try {
@@ -242,9 +298,31 @@ public class AppointmentService {
                 "Appointment rejected: " + rejectionReason
             );
         } catch (Exception e) {
-            System.err.println("Failed to log appointment rejection: " + e.getMessage());
+            log.warn("Failed to log appointment rejection: {}", e.getMessage());
         }
         
         return savedAppointment;
     }
+
+    /**
+     * Save an appointment whose slot was just reserved in the index. The unique reserved_slot
+     * constraint rejects it if the slot was taken through another instance, in which case the
+     * slot stays marked; any other failure gives the slot back.
+     */
+    private Appointment saveReserved(Appointment appointment) {
+        try {
+            return appointmentRepository.save(appointment);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("The " + appointment.getAppointmentTime() + " slot on "
+                + appointment.getAppointmentDate() + " is no longer available. Please choose another time.");
+        } catch (RuntimeException e) {
+            releaseSlot(appointment);
+            throw e;
+        }
+    }
+
+    private void releaseSlot(Appointment appointment) {
+        doctorSlotIndex.release(appointment.getDoctor().getId(), appointment.getAppointmentDate(),
+            appointment.getAppointmentTime());
+    }
 }
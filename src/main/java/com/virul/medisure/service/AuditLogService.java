@@ -1,9 +1,13 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.AuditLog;
 import com.virul.medisure.repository.AuditLogRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,8 +17,15 @@ import java.util.List;
 public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    public AuditLog logAction(AuditLog.EntityType entityType, Long entityId, 
+    /**
+     * Record an action. The entry is written in the background by {@link AuditLogWriter},
+     * so it may not be visible to the read methods below for a short while. Inside a
+     * transaction it is only queued once that transaction has committed, so rolled back
+     * changes leave no audit trail.
+     */
+    public void logAction(AuditLog.EntityType entityType, Long entityId, 
                               AuditLog.Action action, String performedBy, String details) {
         AuditLog auditLog = new AuditLog();
         auditLog.setEntityType(entityType);
@@ -24,13 +35,35 @@ public class AuditLogService {
         auditLog.setDetails(details);
         auditLog.setTimestamp(LocalDateTime.now());
 
-        return auditLogRepository.save(auditLog);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditLogWriter.enqueue(auditLog);
+                }
+            });
+        } else {
+            auditLogWriter.enqueue(auditLog);
+        }
     }
 
     public List<AuditLog> getAllAuditLogs() {
         return auditLogRepository.findAll();
     }
 
+    /**
+     * Keyset page of audit logs ordered by id, starting after the given id
+     */
+    public CursorPage<AuditLog> getAuditLogsPage(Long after, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        List<AuditLog> rows = auditLogRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, AuditLog::getId);
+    }
+
+    public List<AuditLog> getAuditLogsAfter(Long afterId, int limit) {
+        return auditLogRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     public List<AuditLog> getAuditLogsByEntity(AuditLog.EntityType entityType, Long entityId) {
         return auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId);
     }
@@ -0,0 +1,175 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.AuditLog;
+import com.virul.medisure.repository.AuditLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer for audit log entries.
+ * Entries are buffered in a bounded queue and inserted in JDBC batches by a single
+ * flusher thread, so business requests do not wait on the audit insert.
+ * When the queue stays full the entry is written synchronously instead of being dropped.
+ * Direct writes run in a transaction of their own, as they may happen after the caller's
+ * transaction has committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_logs (entity_type, entity_id, action, performed_by, timestamp, details) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditLogRepository auditLogRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${audit.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${audit.async.batch-size:200}")
+    private int batchSize;
+
+    @Value("${audit.async.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${audit.async.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${audit.async.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private TransactionTemplate directTransaction;
+    private BlockingQueue<AuditLog> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        directTransaction = new TransactionTemplate(transactionManager);
+        directTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::runFlusher, "audit-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queue an entry for the next batch. If the queue is still full after the offer
+     * timeout the caller is slowed down by writing the entry itself.
+     */
+    public void enqueue(AuditLog auditLog) {
+        try {
+            if (running && queue.offer(auditLog, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeDirect(auditLog);
+    }
+
+    /**
+     * Number of entries waiting to be written
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                // Shutdown requested; loop exits once the queue is drained
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert entries right away as one JDBC batch, in the caller's transaction if there is one,
+     * e.g. for bulk jobs whose audit trail must commit together with the change
+     */
+    public void writeAll(List<AuditLog> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, auditLog) -> {
+            ps.setString(1, auditLog.getEntityType().name());
+            ps.setLong(2, auditLog.getEntityId());
+            ps.setString(3, auditLog.getAction().name());
+            ps.setString(4, auditLog.getPerformedBy());
+            ps.setTimestamp(5, Timestamp.valueOf(auditLog.getTimestamp()));
+            ps.setString(6, auditLog.getDetails());
+        });
+    }
+
+    private void writeBatch(List<AuditLog> batch) {
+        try {
+            writeAll(batch);
+        } catch (Exception e) {
+            // Batch failed as a whole; retry row by row so one bad entry does not lose the rest
+            log.warn("Audit log batch of {} failed, retrying individually: {}", batch.size(), e.getMessage());
+            batch.forEach(this::writeDirect);
+        }
+    }
+
+    private void writeDirect(AuditLog auditLog) {
+        try {
+            directTransaction.executeWithoutResult(status -> auditLogRepository.save(auditLog));
+        } catch (Exception e) {
+            log.error("Failed to write audit log for {} {}: {}",
+                    auditLog.getEntityType(), auditLog.getEntityId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Wake the flusher so it writes what is queued and exits, and write whatever it has not
+     * got to within the shutdown timeout here
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            log.warn("Audit log flusher did not finish within {} ms", shutdownTimeoutMs);
+        }
+        List<AuditLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Writing {} queued audit log entries on shutdown", remaining.size());
+            for (int from = 0; from < remaining.size(); from += batchSize) {
+                writeBatch(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+            }
+        }
+    }
+}
@@ -22,7 +22,7 @@ public class AuthService {
 
     public AuthResponse register(RegisterRequest request) {
         User user = userService.registerUser(request);
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+        String token = jwtUtil.generateToken(user);
         return new AuthResponse(token, user);
     }
 
@@ -34,13 +34,24 @@ public class AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         
         User user = (User) authentication.getPrincipal();
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+        String token = jwtUtil.generateToken(user);
         
         return new AuthResponse(token, user);
     }
 
+    /**
+     * The authenticated principal. With jwt.stateless it is built from the token and only has
+     * id, email, role and full name; use {@link #getCurrentUserProfile()} for anything else.
+     */
     public User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (User) authentication.getPrincipal();
     }
+
+    /**
+     * The authenticated user as stored, with every field loaded
+     */
+    public User getCurrentUserProfile() {
+        return userService.getUserById(getCurrentUser().getId());
+    }
 }
@@ -0,0 +1,267 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.PolicyDocument;
+import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.repository.PolicyDocumentRepository;
+import com.virul.medisure.repository.PolicyHolderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders certificates for every policy holder in a status, e.g. for annual renewals.
+ * Holders are read in keyset pages; each page is copied into plain certificate values,
+ * rendered in parallel on one worker per core and recorded with a single saveAll. Only one
+ * page is in flight at a time, so memory does not grow with the number of holders.
+ * A batch runs in the background as a job, one at a time; its progress and report are kept
+ * for the last {@value #KEPT_JOBS} jobs. The worker pool lives as long as the service.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CertificateBatchService {
+
+    private final PolicyHolderRepository policyHolderRepository;
+    private final PolicyDocumentRepository policyDocumentRepository;
+    private final PdfService pdfService;
+    private final FileStorageService fileStorageService;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${documents.batch.threads:0}")
+    private int threads;
+
+    @Value("${documents.batch.page-size:200}")
+    private int pageSize;
+
+    private static final int KEPT_JOBS = 20;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, BatchJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BatchJob> eldest) {
+            // Only the newest job can be running, so only finished ones are dropped
+            return size() > KEPT_JOBS;
+        }
+    });
+
+    private int workerCount;
+    private ExecutorService runner;
+    private ExecutorService workers;
+
+    @PostConstruct
+    void start() {
+        workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "certificate-batch-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "certificate-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start rendering certificates for every holder in the status in the background.
+     * Fails if a batch is already running.
+     */
+    public BatchJob startBatch(PolicyHolder.PolicyStatus status) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A certificate batch is already running");
+        }
+        BatchJob job = BatchJob.started(UUID.randomUUID().toString(), status);
+        jobs.put(job.id(), job);
+        try {
+            runner.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            jobs.put(job.id(), job.failed("Shutting down"));
+            throw new IllegalStateException("Certificate batches are not accepted while shutting down");
+        }
+        return job;
+    }
+
+    /**
+     * A batch job as last recorded
+     */
+    public Optional<BatchJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(BatchJob job) {
+        try {
+            BatchReport report = renderCertificates(job);
+            jobs.put(job.id(), jobs.get(job.id()).completed(report));
+        } catch (Exception e) {
+            log.error("Certificate batch {} failed: {}", job.id(), e.getMessage(), e);
+            jobs.put(job.id(), jobs.get(job.id()).failed(e.getMessage()));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private BatchReport renderCertificates(BatchJob job) {
+        PolicyHolder.PolicyStatus status = job.status();
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+
+        long startedAt = System.nanoTime();
+        int rendered = 0;
+        int failed = 0;
+        Long cursor = 0L;
+        while (cursor != null) {
+            final long after = cursor;
+            List<PolicyCertificateTemplate.CertificateFields> page = readTransaction.execute(tx -> {
+                List<PolicyCertificateTemplate.CertificateFields> fields = policyHolderRepository
+                        .findByStatusAndIdGreaterThanOrderByIdAsc(status, after, Limit.of(pageSize))
+                        .stream()
+                        .map(PolicyCertificateTemplate.CertificateFields::of)
+                        .toList();
+                // Keep the persistence context from growing page by page
+                entityManager.clear();
+                return fields;
+            });
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<CompletableFuture<RenderedCertificate>> renders = page.stream()
+                    .map(fields -> CompletableFuture.supplyAsync(() -> render(fields), workers))
+                    .toList();
+            List<RenderedCertificate> certificates = new ArrayList<>(renders.size());
+            for (CompletableFuture<RenderedCertificate> render : renders) {
+                try {
+                    certificates.add(render.join());
+                } catch (CompletionException e) {
+                    failed++;
+                    log.warn("Certificate render failed: {}", e.getCause().getMessage());
+                }
+            }
+
+            try {
+                writeTransaction.executeWithoutResult(tx -> {
+                    policyDocumentRepository.saveAll(certificates.stream().map(this::toDocument).toList());
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+            } catch (RuntimeException e) {
+                // The page's files were never recorded
+                certificates.forEach(certificate -> releaseQuietly(certificate.file().path()));
+                throw e;
+            }
+            rendered += certificates.size();
+            jobs.put(job.id(), jobs.get(job.id()).progress(rendered, failed));
+            log.info("Rendered {} certificates ({} per second)", rendered, perSecond(rendered, startedAt));
+
+            cursor = page.size() < pageSize ? null : page.get(page.size() - 1).policyHolderId();
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        BatchReport report = new BatchReport(rendered, failed, workerCount, elapsedMs, perSecond(rendered, startedAt));
+        log.info("Certificate batch for {} holders finished: {}", status, report);
+        return report;
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private RenderedCertificate render(PolicyCertificateTemplate.CertificateFields fields) {
+        byte[] pdf = pdfService.renderCertificate(fields);
+        FileStorageService.StoredFile stored = fileStorageService.store(pdf,
+                pdfService.newPolicyDocumentPath(fields.policyHolderId()), "application/pdf");
+        return new RenderedCertificate(fields.policyHolderId(), fields.policyName(), stored);
+    }
+
+    private void releaseQuietly(String filePath) {
+        try {
+            fileStorageService.release(filePath);
+        } catch (Exception e) {
+            log.warn("Could not remove unrecorded file {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    private PolicyDocument toDocument(RenderedCertificate certificate) {
+        PolicyDocument document = new PolicyDocument();
+        document.setPolicyHolder(policyHolderRepository.getReferenceById(certificate.policyHolderId()));
+        document.setFileName("Policy_Certificate_" + certificate.policyHolderId() + ".pdf");
+        document.setFileUrl(certificate.file().path());
+        document.setFileType("application/pdf");
+        document.setFileSize(certificate.file().size());
+        document.setChecksum(certificate.file().checksum());
+        document.setDocumentType(PolicyDocument.DocumentType.POLICY_CERTIFICATE);
+        document.setDescription("Policy certificate for " + certificate.policyName());
+        document.setStatus(PolicyDocument.DocumentStatus.READY);
+        return document;
+    }
+
+    private static double perSecond(int count, long startedAt) {
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        return seconds > 0 ? Math.round(count / seconds * 10) / 10.0 : count;
+    }
+
+    private record RenderedCertificate(Long policyHolderId, String policyName, FileStorageService.StoredFile file) {
+    }
+
+    public record BatchReport(int rendered, int failed, int threads, long elapsedMs, double certificatesPerSecond) {
+    }
+
+    /**
+     * A background batch and how far it has got; report is set once it has completed
+     */
+    public record BatchJob(String id, PolicyHolder.PolicyStatus status, State state, int rendered, int failed,
+                           LocalDateTime startedAt, LocalDateTime finishedAt, BatchReport report, String error) {
+
+        public enum State {
+            RUNNING, COMPLETED, FAILED
+        }
+
+        static BatchJob started(String id, PolicyHolder.PolicyStatus status) {
+            return new BatchJob(id, status, State.RUNNING, 0, 0, LocalDateTime.now(), null, null, null);
+        }
+
+        BatchJob progress(int rendered, int failed) {
+            return new BatchJob(id, status, state, rendered, failed, startedAt, null, null, null);
+        }
+
+        BatchJob completed(BatchReport report) {
+            return new BatchJob(id, status, State.COMPLETED, report.rendered(), report.failed(), startedAt,
+                    LocalDateTime.now(), report, null);
+        }
+
+        BatchJob failed(String error) {
+            return new BatchJob(id, status, State.FAILED, rendered, failed, startedAt, LocalDateTime.now(), null, error);
+        }
+    }
+}
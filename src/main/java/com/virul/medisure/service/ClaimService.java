@@ -1,15 +1,19 @@
 package com.virul.medisure.service;
 
 import com.virul.medisure.dto.ClaimRequest;
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.*;
 import com.virul.medisure.repository.ClaimRepository;
 import com.virul.medisure.repository.AuditLogRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
+@Timed("medisure.service")
 @RequiredArgsConstructor
 public class ClaimService {
 
@@ -56,6 +60,19 @@ public class ClaimService {
         return claimRepository.findAll();
     }
 
+    /**
+     * Keyset page of claims ordered by id, starting after the given id
+     */
+    public CursorPage<Claim> getClaimsPage(Long after, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        List<Claim> rows = claimRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Claim::getId);
+    }
+
+    public List<Claim> getClaimsAfter(Long afterId, int limit) {
+        return claimRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     public List<Claim> getClaimsByStatus(Claim.ClaimStatus status) {
         return claimRepository.findByStatus(status);
     }
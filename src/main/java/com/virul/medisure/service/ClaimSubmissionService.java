@@ -0,0 +1,180 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.dto.ClaimRequest;
+import com.virul.medisure.model.Claim;
+import com.virul.medisure.model.ClaimDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Submits a claim together with its attached documents.
+ * Attachments are stored in parallel on a bounded pool. The claim and all of its document
+ * rows are then written in one transaction, the rows as a single JDBC batch (Hibernate does
+ * not batch IDENTITY inserts). Files stored for a submission that does not commit are
+ * released again, so a failed submission leaves no orphans behind.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClaimSubmissionService {
+
+    static final String CLAIM_DOCUMENTS_FOLDER = "claim-documents";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO claim_documents (claim_id, file_name, file_url, file_type, file_size, checksum, " +
+            "document_type, uploaded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ClaimService claimService;
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${claims.submission.threads:4}")
+    private int threads;
+
+    @Value("${claims.submission.queue-capacity:100}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor storageWorkers;
+    private TransactionTemplate releaseTransaction;
+
+    @PostConstruct
+    void start() {
+        // Releases run after the submission's transaction has completed, so each needs its own
+        // to update blob reference counts
+        releaseTransaction = new TransactionTemplate(transactionManager);
+        releaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger threadCount = new AtomicInteger();
+        storageWorkers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "claim-attachment-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue stores on the request thread instead of failing the submission
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Store the attachments and submit the claim with them
+     */
+    public Claim submit(Long policyHolderId, ClaimRequest request, List<Attachment> attachments) {
+        return submitStored(policyHolderId, request, storeAll(attachments));
+    }
+
+    /**
+     * Submit the claim with documents whose files are already stored. From here on the files
+     * belong to the submission: they are released if it does not commit.
+     */
+    public Claim submitStored(Long policyHolderId, ClaimRequest request, List<ClaimDocument> documents) {
+        try {
+            return transactionTemplate.execute(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int completionStatus) {
+                        if (completionStatus != STATUS_COMMITTED) {
+                            releaseAll(documents);
+                        }
+                    }
+                });
+                Claim claim = claimService.submitClaim(policyHolderId, request);
+                documents.forEach(document -> document.setClaim(claim));
+                insertDocuments(documents);
+                return claim;
+            });
+        } catch (CannotCreateTransactionException e) {
+            releaseAll(documents);
+            throw e;
+        }
+    }
+
+    private List<ClaimDocument> storeAll(List<Attachment> attachments) {
+        List<CompletableFuture<ClaimDocument>> stores = attachments.stream()
+                .map(attachment -> CompletableFuture.supplyAsync(() -> store(attachment), storageWorkers))
+                .toList();
+        try {
+            CompletableFuture.allOf(stores.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // Keep nothing from a partly stored submission
+            releaseAll(stores.stream()
+                    .filter(store -> !store.isCompletedExceptionally())
+                    .map(CompletableFuture::join)
+                    .toList());
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return stores.stream().map(CompletableFuture::join).toList();
+    }
+
+    private ClaimDocument store(Attachment attachment) {
+        MultipartFile file = attachment.file();
+        FileStorageService.StoredFile stored = fileStorageService.store(file, CLAIM_DOCUMENTS_FOLDER);
+        ClaimDocument document = new ClaimDocument();
+        document.setFileName(file.getOriginalFilename());
+        document.setFileUrl(stored.path());
+        document.setFileType(stored.contentType());
+        document.setFileSize(stored.size());
+        document.setChecksum(stored.checksum());
+        document.setDocumentType(attachment.documentType());
+        return document;
+    }
+
+    private void insertDocuments(List<ClaimDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, documents, documents.size(), (ps, document) -> {
+            ps.setLong(1, document.getClaim().getId());
+            ps.setString(2, document.getFileName());
+            ps.setString(3, document.getFileUrl());
+            ps.setString(4, document.getFileType());
+            ps.setLong(5, document.getFileSize());
+            ps.setString(6, document.getChecksum());
+            ps.setString(7, document.getDocumentType().name());
+            ps.setTimestamp(8, Timestamp.valueOf(document.getUploadedAt()));
+        });
+    }
+
+    private void releaseAll(List<ClaimDocument> documents) {
+        for (ClaimDocument document : documents) {
+            try {
+                releaseTransaction.executeWithoutResult(status -> fileStorageService.release(document.getFileUrl()));
+            } catch (Exception e) {
+                log.warn("Could not remove uploaded file {}: {}", document.getFileUrl(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        storageWorkers.shutdown();
+    }
+
+    /**
+     * An uploaded file and the kind of document it is
+     */
+    public record Attachment(MultipartFile file, ClaimDocument.DocumentType documentType) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.dto.ClaimRequest;
+import com.virul.medisure.model.Claim;
+import com.virul.medisure.model.ClaimDocument;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Streaming variant of the claim-with-documents submission.
+ * The multipart body is parsed as it arrives: each file part is written straight to the
+ * document storage while its size, checksum and content type are worked out, so neither
+ * memory nor temp-disk use grows with the upload. The claim and its document rows are then
+ * written by ClaimSubmissionService. If anything fails the files already stored are released
+ * again. The parser is the streaming one bundled with the embedded Tomcat (the one behind the
+ * container's own multipart support), so no extra dependency is needed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClaimUploadService {
+
+    // Form fields are short; anything longer is not a legitimate claim form
+    private static final int MAX_FIELD_LENGTH = 10_000;
+
+    private static final Map<String, ClaimDocument.DocumentType> DOCUMENT_FIELDS = Map.of(
+            "billDocument", ClaimDocument.DocumentType.BILL,
+            "medicalReport", ClaimDocument.DocumentType.MEDICAL_REPORT,
+            "prescription", ClaimDocument.DocumentType.PRESCRIPTION,
+            "otherDocuments", ClaimDocument.DocumentType.OTHER);
+
+    private final ClaimSubmissionService claimSubmissionService;
+    private final FileStorageService fileStorageService;
+
+    @Value("${claims.upload.max-file-size:50MB}")
+    private DataSize maxFileSize;
+
+    @Value("${claims.upload.max-request-size:200MB}")
+    private DataSize maxRequestSize;
+
+    @Value("${claims.upload.max-files:20}")
+    private int maxFiles;
+
+    /**
+     * Read a multipart claim submission from the request and store it. The form fields are
+     * turned into a ClaimRequest by the caller once the whole body has been read.
+     */
+    public Claim submitStreaming(Long policyHolderId, HttpServletRequest request,
+                                 Function<Map<String, String>, ClaimRequest> form) throws IOException {
+        FileUpload upload = new FileUpload();
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setSizeMax(maxRequestSize.toBytes());
+        upload.setFileCountMax(maxFiles);
+
+        Map<String, String> fields = new HashMap<>();
+        List<ClaimDocument> documents = new ArrayList<>();
+        ClaimRequest claimRequest;
+        try {
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (item.isFormField()) {
+                    fields.put(item.getFieldName(), readField(item));
+                } else if (item.getName() != null && !item.getName().isEmpty()) {
+                    ClaimDocument document = storeDocument(item);
+                    if (document != null) {
+                        documents.add(document);
+                    }
+                }
+            }
+
+            claimRequest = form.apply(fields);
+        } catch (IOException | RuntimeException e) {
+            documents.forEach(document -> releaseQuietly(document.getFileUrl()));
+            throw e;
+        }
+        return claimSubmissionService.submitStored(policyHolderId, claimRequest, documents);
+    }
+
+    private ClaimDocument storeDocument(FileItemStream item) throws IOException {
+        ClaimDocument.DocumentType documentType = DOCUMENT_FIELDS.get(item.getFieldName());
+        if (documentType == null) {
+            throw new IllegalArgumentException("Unexpected file field: " + item.getFieldName());
+        }
+
+        FileStorageService.StoredFile stored;
+        try (InputStream in = item.openStream()) {
+            stored = fileStorageService.store(in, item.getName(), item.getContentType(),
+                    ClaimSubmissionService.CLAIM_DOCUMENTS_FOLDER);
+        }
+        if (stored.size() == 0) {
+            // An empty file input, skipped like the buffered upload path does
+            fileStorageService.release(stored.path());
+            return null;
+        }
+
+        ClaimDocument document = new ClaimDocument();
+        document.setFileName(item.getName());
+        document.setFileUrl(stored.path());
+        document.setFileType(stored.contentType());
+        document.setFileSize(stored.size());
+        document.setChecksum(stored.checksum());
+        document.setDocumentType(documentType);
+        return document;
+    }
+
+    private static String readField(FileItemStream item) throws IOException {
+        try (InputStream in = item.openStream()) {
+            byte[] value = in.readNBytes(MAX_FIELD_LENGTH + 1);
+            if (value.length > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("Field too long: " + item.getFieldName());
+            }
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private void releaseQuietly(String filePath) {
+        try {
+            fileStorageService.release(filePath);
+        } catch (Exception e) {
+            log.warn("Could not remove uploaded file {}: {}", filePath, e.getMessage());
+        }
+    }
+}
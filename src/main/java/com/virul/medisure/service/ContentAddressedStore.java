@@ -0,0 +1,303 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.StoredBlob;
+import com.virul.medisure.repository.StoredBlobRepository;
+import com.virul.medisure.storage.DocumentStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Deduplicating file store. Each distinct content is kept once in the DocumentStorage, under
+ * uploads/blobs/ab/cd/abcd..., where the name is the SHA-256 of the bytes. A StoredBlob row
+ * counts the documents referencing it. Storing content that is already present only costs
+ * the hash. Blobs whose count has stayed at zero for the grace period, and files that never
+ * got a row, are removed by a periodic garbage collection.
+ * Storing and collecting the same checksum are serialized with a striped lock, which is
+ * enough while a single instance writes the blob prefix. The stripes are ReentrantLocks rather
+ * than monitors because they are held across storage and database calls, which would pin a
+ * virtual thread to its carrier inside a synchronized block.
+ * A reference is committed as soon as it is taken, while the stripe lock is held, so the
+ * garbage collection never sees a blob that is about to be referenced. A caller that stores
+ * inside a transaction has the reference dropped again if that transaction rolls back;
+ * callers outside one release the file themselves if they fail to record it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentAddressedStore {
+
+    static final String BLOB_DIR = "uploads/blobs/";
+
+    private static final String STAGING_DIR = "staging/";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final StoredBlobRepository storedBlobRepository;
+    private final DocumentStorage documentStorage;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${storage.content-addressed.gc-interval-ms:3600000}")
+    private long gcIntervalMs;
+
+    @Value("${storage.content-addressed.gc-grace-ms:600000}")
+    private long gcGraceMs;
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final Path blobRoot = Paths.get(BLOB_DIR);
+    private ScheduledExecutorService collector;
+    private TransactionTemplate blobTransaction;
+
+    @PostConstruct
+    void start() {
+        blobTransaction = new TransactionTemplate(transactionManager);
+        blobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        collector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blob-collector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        collector.scheduleWithFixedDelay(() -> {
+            try {
+                collectGarbage();
+            } catch (Exception e) {
+                log.error("Blob garbage collection failed: {}", e.getMessage(), e);
+            }
+        }, gcIntervalMs, gcIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the path points into this store
+     */
+    public boolean contains(String path) {
+        return path != null && Paths.get(path).normalize().startsWith(blobRoot);
+    }
+
+    /**
+     * Store content and take one reference to it. The content is hashed first; its bytes are
+     * only written when no blob with that hash exists yet.
+     */
+    public FileStorageService.StoredFile store(InputStreamSource source, String contentType) throws IOException {
+        MessageDigest digest = sha256();
+        long size = 0;
+        try (InputStream in = source.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        String key = blobKey(checksum);
+
+        ReentrantLock lock = lockFor(checksum);
+        lock.lock();
+        try {
+            if (!documentStorage.exists(key)) {
+                try (InputStream in = source.getInputStream()) {
+                    documentStorage.put(key, in, size, contentType);
+                }
+            }
+            acquire(checksum, key, size);
+        } finally {
+            lock.unlock();
+        }
+        return new FileStorageService.StoredFile(key, checksum, size, contentType);
+    }
+
+    /**
+     * Key to write streamed content to before its hash is known. A staged object that is
+     * never adopted has no row and is removed by the garbage collection.
+     */
+    public String stagingKey() {
+        return BLOB_DIR + STAGING_DIR + UUID.randomUUID();
+    }
+
+    /**
+     * Turn content already written to a staging key into a blob and take one reference to it.
+     * If the content is already stored the staged copy is deleted instead.
+     */
+    public FileStorageService.StoredFile adopt(String stagedKey, String checksum, long size, String contentType)
+            throws IOException {
+        String key = blobKey(checksum);
+        ReentrantLock lock = lockFor(checksum);
+        lock.lock();
+        try {
+            if (documentStorage.exists(key)) {
+                documentStorage.delete(stagedKey);
+            } else {
+                documentStorage.move(stagedKey, key);
+            }
+            acquire(checksum, key, size);
+        } finally {
+            lock.unlock();
+        }
+        return new FileStorageService.StoredFile(key, checksum, size, contentType);
+    }
+
+    /**
+     * Drop one reference to the blob at the given path
+     */
+    public void release(String path) {
+        String checksum = Paths.get(path).getFileName().toString();
+        if (storedBlobRepository.decrementRefCount(checksum, LocalDateTime.now()) == 0) {
+            log.warn("Released blob {} that had no references", checksum);
+        }
+    }
+
+    /**
+     * Delete blobs unreferenced for longer than the grace period, plus stored files without a
+     * row (left by a crash between writing the file and recording it). Returns the number of
+     * files removed.
+     */
+    public int collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(gcGraceMs * 1_000_000);
+        int removed = 0;
+
+        List<StoredBlob> unreferenced = storedBlobRepository.findByRefCountLessThanEqualAndReleasedAtBefore(0, cutoff);
+        for (StoredBlob blob : unreferenced) {
+            ReentrantLock lock = lockFor(blob.getChecksum());
+            lock.lock();
+            try {
+                if (storedBlobRepository.deleteIfUnreferenced(blob.getChecksum()) == 1) {
+                    deleteQuietly(blob.getPath());
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long cutoffMillis = System.currentTimeMillis() - gcGraceMs;
+        List<DocumentStorage.ObjectInfo> stale;
+        try (Stream<DocumentStorage.ObjectInfo> objects = documentStorage.list(BLOB_DIR)) {
+            stale = objects.filter(object -> object.lastModified() < cutoffMillis).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (DocumentStorage.ObjectInfo object : stale) {
+            String name = Paths.get(object.key()).getFileName().toString();
+            ReentrantLock lock = lockFor(name);
+            lock.lock();
+            try {
+                if (!storedBlobRepository.existsById(name)) {
+                    deleteQuietly(object.key());
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (removed > 0) {
+            log.info("Blob garbage collection removed {} files", removed);
+        }
+        return removed;
+    }
+
+    public long countBlobs() {
+        return storedBlobRepository.count();
+    }
+
+    public long countReferencedBlobs() {
+        return storedBlobRepository.countByRefCountGreaterThan(0);
+    }
+
+    private void acquire(String checksum, String key, long size) {
+        // In its own transaction even when the caller has one, so it commits under the lock
+        Integer updated = blobTransaction.execute(tx -> storedBlobRepository.incrementRefCount(checksum));
+        if (updated == null || updated == 0) {
+            try {
+                blobTransaction.executeWithoutResult(tx ->
+                        storedBlobRepository.save(new StoredBlob(checksum, key, size, 1, LocalDateTime.now(), null)));
+            } catch (DataIntegrityViolationException e) {
+                // Recorded concurrently by another thread
+                blobTransaction.executeWithoutResult(tx -> storedBlobRepository.incrementRefCount(checksum));
+            }
+        }
+        releaseOnRollback(key);
+    }
+
+    /**
+     * Drop the reference just taken if the caller's transaction does not commit, as the
+     * document row that would hold it is never saved
+     */
+    private void releaseOnRollback(String key) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    blobTransaction.executeWithoutResult(tx -> release(key));
+                } catch (Exception e) {
+                    log.warn("Could not release blob {} after rollback: {}", key, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static String blobKey(String checksum) {
+        return BLOB_DIR + checksum.substring(0, 2) + "/" + checksum.substring(2, 4) + "/" + checksum;
+    }
+
+    private ReentrantLock lockFor(String checksum) {
+        return locks[Math.floorMod(checksum.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            documentStorage.delete(key);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        collector.shutdownNow();
+    }
+}
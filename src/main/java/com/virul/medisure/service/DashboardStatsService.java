@@ -0,0 +1,253 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.dto.AgentDashboardStats;
+import com.virul.medisure.dto.DoctorDashboardStats;
+import com.virul.medisure.model.Appointment;
+import com.virul.medisure.model.Policy;
+import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.repository.AppointmentRepository;
+import com.virul.medisure.repository.PolicyHolderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dashboard statistics backed by aggregate queries and in-memory counters.
+ * Status counters are loaded once with a GROUP BY query and then kept current by the
+ * record* hooks called from AppointmentService and PolicyHolderService. The hooks apply their
+ * deltas once the caller's transaction commits, so a rollback leaves the counters alone. A reload
+ * is installed under the same lock the hooks take, so no delta lands on counters that are being
+ * replaced. Counters are reloaded after the refresh interval so any drift is bounded.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardStatsService {
+
+    private static final Set<Appointment.AppointmentStatus> OPEN_STATUSES = EnumSet.of(
+            Appointment.AppointmentStatus.PENDING,
+            Appointment.AppointmentStatus.SCHEDULED,
+            Appointment.AppointmentStatus.CONFIRMED);
+
+    private final AppointmentRepository appointmentRepository;
+    private final PolicyHolderRepository policyHolderRepository;
+
+    private final Map<Long, DoctorCounters> doctorCounters = new ConcurrentHashMap<>();
+    private final ReentrantLock activeHolderLock = new ReentrantLock();
+    private ActiveHolderCounters activeHolderCounters;
+
+    @Value("${dashboard.counters.refresh-ms:300000}")
+    private long refreshMs;
+
+    /**
+     * Appointment statistics for a doctor's dashboard
+     */
+    public DoctorDashboardStats getDoctorStats(Long doctorId) {
+        DoctorCounters counters = doctorCounters(doctorId);
+
+        LocalDate today = LocalDate.now();
+        YearMonth currentMonth = YearMonth.from(today);
+        AppointmentRepository.DoctorWindowCounts window = appointmentRepository.aggregateWindowForDoctor(
+                doctorId, OPEN_STATUSES, Appointment.AppointmentStatus.COMPLETED,
+                today, currentMonth.atDay(1), currentMonth.atEndOfMonth());
+
+        return new DoctorDashboardStats(
+                counters.total(),
+                counters.get(Appointment.AppointmentStatus.COMPLETED),
+                window.getScheduled(),
+                window.getThisMonth(),
+                window.getCompletedThisMonth(),
+                window.getPatients()
+        );
+    }
+
+    /**
+     * Next open appointments for a doctor, soonest first
+     */
+    public List<Appointment> getUpcomingAppointments(Long doctorId, int limit) {
+        return appointmentRepository.findUpcomingForDoctor(
+                doctorId, OPEN_STATUSES, LocalDate.now(), LocalTime.now(), PageRequest.of(0, limit));
+    }
+
+    /**
+     * Active policy holder statistics for the agent dashboard
+     */
+    public AgentDashboardStats getAgentStats() {
+        ActiveHolderCounters counters = activeHolderCounters();
+        long newThisMonth = policyHolderRepository.countByStatusAndCreatedAtGreaterThanEqual(
+                PolicyHolder.PolicyStatus.ACTIVE, YearMonth.now().atDay(1).atStartOfDay());
+        return new AgentDashboardStats(counters.getCount(), counters.getPremiums(), newThisMonth);
+    }
+
+    /**
+     * Record an appointment change. Pass null for the "old" side on create and for the
+     * "new" side on delete.
+     */
+    public void recordAppointmentChange(Long oldDoctorId, Appointment.AppointmentStatus oldStatus,
+                                        Long newDoctorId, Appointment.AppointmentStatus newStatus) {
+        afterCommit(() -> {
+            if (oldDoctorId != null && oldStatus != null) {
+                doctorCounters.computeIfPresent(oldDoctorId, (id, counters) -> counters.add(oldStatus, -1));
+            }
+            if (newDoctorId != null && newStatus != null) {
+                doctorCounters.computeIfPresent(newDoctorId, (id, counters) -> counters.add(newStatus, 1));
+            }
+        });
+    }
+
+    /**
+     * Record a policy holder change. oldStatus and oldPolicy are the values before the
+     * change (null on create); updated is the saved policy holder.
+     */
+    public void recordPolicyHolderChange(PolicyHolder.PolicyStatus oldStatus, Policy oldPolicy, PolicyHolder updated) {
+        BigDecimal removed = oldStatus == PolicyHolder.PolicyStatus.ACTIVE && oldPolicy != null
+                ? oldPolicy.getPremiumAmount() : null;
+        BigDecimal added = updated != null && updated.getStatus() == PolicyHolder.PolicyStatus.ACTIVE
+                ? updated.getPolicy().getPremiumAmount() : null;
+        if (removed == null && added == null) {
+            return;
+        }
+        afterCommit(() -> {
+            activeHolderLock.lock();
+            try {
+                if (activeHolderCounters == null) {
+                    return;
+                }
+                if (removed != null) {
+                    activeHolderCounters.add(-1, removed.negate());
+                }
+                if (added != null) {
+                    activeHolderCounters.add(1, added);
+                }
+            } finally {
+                activeHolderLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Drop the policy holder counters, e.g. after a premium change or a bulk update
+     */
+    public void invalidatePolicyHolderCounters() {
+        afterCommit(() -> {
+            activeHolderLock.lock();
+            try {
+                activeHolderCounters = null;
+            } finally {
+                activeHolderLock.unlock();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private DoctorCounters doctorCounters(Long doctorId) {
+        DoctorCounters counters = doctorCounters.get(doctorId);
+        if (counters != null && !counters.isStale(refreshMs)) {
+            return counters;
+        }
+        // Loaded inside compute so a concurrent delta for this doctor waits for the new counters
+        return doctorCounters.compute(doctorId, (id, current) -> {
+            if (current != null && !current.isStale(refreshMs)) {
+                return current;
+            }
+            DoctorCounters loaded = new DoctorCounters();
+            for (Object[] row : appointmentRepository.countByStatusForDoctor(id)) {
+                loaded.add((Appointment.AppointmentStatus) row[0], (Long) row[1]);
+            }
+            return loaded;
+        });
+    }
+
+    private ActiveHolderCounters activeHolderCounters() {
+        activeHolderLock.lock();
+        try {
+            if (activeHolderCounters == null || activeHolderCounters.isStale(refreshMs)) {
+                PolicyHolderRepository.StatusTotals totals = policyHolderRepository.totalsByStatus(PolicyHolder.PolicyStatus.ACTIVE);
+                activeHolderCounters = new ActiveHolderCounters(totals.getHolders(), totals.getPremiums());
+            }
+            return activeHolderCounters;
+        } finally {
+            activeHolderLock.unlock();
+        }
+    }
+
+    private static final class DoctorCounters {
+        private final AtomicLongArray byStatus = new AtomicLongArray(Appointment.AppointmentStatus.values().length);
+        private final long loadedAt = System.currentTimeMillis();
+
+        DoctorCounters add(Appointment.AppointmentStatus status, long delta) {
+            byStatus.addAndGet(status.ordinal(), delta);
+            return this;
+        }
+
+        long get(Appointment.AppointmentStatus status) {
+            return byStatus.get(status.ordinal());
+        }
+
+        long total() {
+            long total = 0;
+            for (int i = 0; i < byStatus.length(); i++) {
+                total += byStatus.get(i);
+            }
+            return total;
+        }
+
+        boolean isStale(long refreshMs) {
+            return System.currentTimeMillis() - loadedAt > refreshMs;
+        }
+    }
+
+    private static final class ActiveHolderCounters {
+        private long count;
+        private BigDecimal premiums;
+        private final long loadedAt = System.currentTimeMillis();
+
+        ActiveHolderCounters(long count, BigDecimal premiums) {
+            this.count = count;
+            this.premiums = premiums;
+        }
+
+        synchronized void add(long countDelta, BigDecimal premiumDelta) {
+            count += countDelta;
+            premiums = premiums.add(premiumDelta);
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized BigDecimal getPremiums() {
+            return premiums;
+        }
+
+        boolean isStale(long refreshMs) {
+            return System.currentTimeMillis() - loadedAt > refreshMs;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.virul.medisure.service;
+
+/**
+ * Published when a doctor's working hours or blocked periods change
+ */
+public record DoctorScheduleChangedEvent(Long doctorId) {
+}
@@ -0,0 +1,204 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.dto.BlockedPeriodRequest;
+import com.virul.medisure.dto.CursorPage;
+import com.virul.medisure.dto.DoctorAvailability;
+import com.virul.medisure.dto.DoctorScheduleRequest;
+import com.virul.medisure.model.Doctor;
+import com.virul.medisure.model.DoctorBlockedPeriod;
+import com.virul.medisure.model.DoctorSchedule;
+import com.virul.medisure.repository.DoctorBlockedPeriodRepository;
+import com.virul.medisure.repository.DoctorRepository;
+import com.virul.medisure.repository.DoctorScheduleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Doctors' weekly working hours and blocked periods, which define the slots patients can book
+ */
+@Service
+@RequiredArgsConstructor
+public class DoctorScheduleService {
+
+    public static final int MAX_SEARCH_DAYS = 31;
+
+    /**
+     * Batches of candidate doctors (page size + 1 each) a free-slot search examines per request
+     */
+    private static final int MAX_SEARCH_BATCHES = 5;
+
+    private final DoctorScheduleRepository doctorScheduleRepository;
+    private final DoctorBlockedPeriodRepository doctorBlockedPeriodRepository;
+    private final DoctorService doctorService;
+    private final DoctorRepository doctorRepository;
+    private final DoctorSlotIndex doctorSlotIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The hours that apply on each day of the week, defaults included
+     */
+    public List<DoctorSchedule> getWeeklySchedule(Long doctorId) {
+        doctorService.getDoctorById(doctorId);
+        return Arrays.stream(DayOfWeek.values())
+                .map(day -> doctorSlotIndex.effectiveSchedule(doctorId, day))
+                .toList();
+    }
+
+    /**
+     * Replace the doctor's working hours. Days left out fall back to the default hours.
+     * Existing appointments are kept even if they now fall outside the hours.
+     */
+    @Transactional
+    public List<DoctorSchedule> replaceWeeklySchedule(Long doctorId, List<DoctorScheduleRequest> requests) {
+        Doctor doctor = doctorService.getDoctorById(doctorId);
+        Set<DayOfWeek> seen = new HashSet<>();
+        List<DoctorSchedule> schedules = requests.stream().map(request -> {
+            if (!seen.add(request.getDayOfWeek())) {
+                throw new IllegalArgumentException("Working hours given twice for " + request.getDayOfWeek());
+            }
+            return toSchedule(doctor, request);
+        }).toList();
+
+        doctorScheduleRepository.deleteByDoctorId(doctorId);
+        doctorScheduleRepository.saveAll(schedules);
+        eventPublisher.publishEvent(new DoctorScheduleChangedEvent(doctorId));
+        return getWeeklySchedule(doctorId);
+    }
+
+    public List<DoctorBlockedPeriod> getUpcomingBlockedPeriods(Long doctorId) {
+        return doctorBlockedPeriodRepository.findByDoctorIdAndEndsAtAfterOrderByStartsAtAsc(
+                doctorId, LocalDateTime.now());
+    }
+
+    /**
+     * Stop taking appointments for a period. Appointments already booked in it are kept.
+     */
+    @Transactional
+    public DoctorBlockedPeriod addBlockedPeriod(Long doctorId, BlockedPeriodRequest request) {
+        if (!request.getEndsAt().isAfter(request.getStartsAt())) {
+            throw new IllegalArgumentException("A blocked period must end after it starts");
+        }
+        DoctorBlockedPeriod period = new DoctorBlockedPeriod();
+        period.setDoctor(doctorService.getDoctorById(doctorId));
+        period.setStartsAt(request.getStartsAt());
+        period.setEndsAt(request.getEndsAt());
+        period.setReason(request.getReason());
+
+        DoctorBlockedPeriod saved = doctorBlockedPeriodRepository.save(period);
+        eventPublisher.publishEvent(new DoctorScheduleChangedEvent(doctorId));
+        return saved;
+    }
+
+    @Transactional
+    public void removeBlockedPeriod(Long doctorId, Long periodId) {
+        DoctorBlockedPeriod period = doctorBlockedPeriodRepository.findById(periodId)
+                .filter(found -> found.getDoctor().getId().equals(doctorId))
+                .orElseThrow(() -> new RuntimeException("Blocked period not found"));
+        doctorBlockedPeriodRepository.delete(period);
+        eventPublisher.publishEvent(new DoctorScheduleChangedEvent(doctorId));
+    }
+
+    /**
+     * Available doctors, optionally of one specialization, that have a free slot on any of the
+     * days from the given date, with those slots. Paged by doctor id like CursorPage listings;
+     * each batch of candidates is checked against the slot index together, so the number of
+     * queries does not grow with the number of doctors or days. At most
+     * {@value #MAX_SEARCH_BATCHES} batches are examined per request: if they do not fill the
+     * page, it is returned short (possibly empty) with a cursor to carry on from.
+     */
+    public CursorPage<DoctorAvailability> searchFreeSlots(String specialization, LocalDate from, int days,
+                                                          Long after, int size) {
+        if (days < 1 || days > MAX_SEARCH_DAYS) {
+            throw new IllegalArgumentException("Search between 1 and " + MAX_SEARCH_DAYS + " days");
+        }
+        int pageSize = CursorPage.clampSize(size);
+        LocalDate to = from.plusDays(days - 1L);
+
+        List<DoctorAvailability> found = new ArrayList<>();
+        long cursor = CursorPage.startAfter(after);
+        boolean exhausted = false;
+        // Doctors without a free slot are skipped, so read on until the page is full
+        for (int batch = 0; batch < MAX_SEARCH_BATCHES && found.size() <= pageSize; batch++) {
+            List<Doctor> candidates = findBookableDoctors(specialization, cursor, pageSize + 1);
+            if (candidates.isEmpty()) {
+                exhausted = true;
+                break;
+            }
+            Map<Long, Map<LocalDate, List<LocalTime>>> freeSlots = doctorSlotIndex.freeSlots(
+                    candidates.stream().map(Doctor::getId).toList(), from, to);
+            for (Doctor doctor : candidates) {
+                Map<LocalDate, List<LocalTime>> slots = freeSlots.get(doctor.getId());
+                if (slots != null) {
+                    found.add(toAvailability(doctor, slots));
+                }
+            }
+            cursor = candidates.get(candidates.size() - 1).getId();
+            if (candidates.size() <= pageSize) {
+                exhausted = true;
+                break;
+            }
+        }
+        if (found.size() <= pageSize && !exhausted) {
+            // Stopped at the batch limit: continue after the last doctor examined
+            return new CursorPage<>(found, cursor, found.size());
+        }
+        return CursorPage.of(found, pageSize, DoctorAvailability::getDoctorId);
+    }
+
+    private List<Doctor> findBookableDoctors(String specialization, long after, int limit) {
+        if (specialization == null || specialization.isBlank()) {
+            return doctorRepository.findByIsAvailableTrueAndIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
+        }
+        return doctorRepository.findByIsAvailableTrueAndSpecializationIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                specialization.trim(), after, Limit.of(limit));
+    }
+
+    private static DoctorAvailability toAvailability(Doctor doctor, Map<LocalDate, List<LocalTime>> slots) {
+        Map.Entry<LocalDate, List<LocalTime>> first = slots.entrySet().iterator().next();
+        return new DoctorAvailability(doctor.getId(), doctor.getUser().getFullName(), doctor.getSpecialization(),
+                first.getKey().atTime(first.getValue().get(0)), slots);
+    }
+
+    private static DoctorSchedule toSchedule(Doctor doctor, DoctorScheduleRequest request) {
+        DoctorSchedule schedule = new DoctorSchedule();
+        schedule.setDoctor(doctor);
+        schedule.setDayOfWeek(request.getDayOfWeek());
+        schedule.setWorking(request.isWorking());
+        if (!request.isWorking()) {
+            // Hours are irrelevant on a day off but the columns are required
+            schedule.setStartTime(LocalTime.MIDNIGHT);
+            schedule.setEndTime(LocalTime.MIDNIGHT);
+            schedule.setSlotMinutes(request.getSlotMinutes() != null ? request.getSlotMinutes() : 30);
+            return schedule;
+        }
+        if (request.getStartTime() == null || request.getEndTime() == null || request.getSlotMinutes() == null) {
+            throw new IllegalArgumentException("Start, end and slot length are required for " + request.getDayOfWeek());
+        }
+        if (!request.getEndTime().isAfter(request.getStartTime())) {
+            throw new IllegalArgumentException("Working hours on " + request.getDayOfWeek() + " must end after they start");
+        }
+        long minutes = Duration.between(request.getStartTime(), request.getEndTime()).toMinutes();
+        if (minutes < request.getSlotMinutes()) {
+            throw new IllegalArgumentException("Working hours on " + request.getDayOfWeek() + " are shorter than one slot");
+        }
+        schedule.setStartTime(request.getStartTime());
+        schedule.setEndTime(request.getEndTime());
+        schedule.setSlotMinutes(request.getSlotMinutes());
+        return schedule;
+    }
+}
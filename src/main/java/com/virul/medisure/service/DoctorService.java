@@ -1,10 +1,13 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.config.CacheConfig;
 import com.virul.medisure.dto.DoctorRequest;
 import com.virul.medisure.model.Doctor;
 import com.virul.medisure.model.User;
 import com.virul.medisure.repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,6 +19,7 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final UserService userService;
 
+    @CacheEvict(cacheNames = CacheConfig.DOCTORS, allEntries = true)
     public Doctor registerDoctor(DoctorRequest request) {
         User user = userService.getUserById(request.getUserId());
         
@@ -31,13 +35,16 @@ public class DoctorService {
         return doctorRepository.save(doctor);
     }
 
+    // Cached with the user loaded, since the cached entities are read outside any session
+    @Cacheable(cacheNames = CacheConfig.DOCTORS, key = "'all'")
     public List<Doctor> getAllDoctors() {
-        return doctorRepository.findAll();
+        return doctorRepository.findAllWithUser();
     }
 
+    @Cacheable(cacheNames = CacheConfig.DOCTORS, key = "'all'")
     public List<Doctor> getAvailableDoctors() {
         // Treat every registered doctor as available for booking
-        return doctorRepository.findAll();
+        return doctorRepository.findAllWithUser();
     }
 
     public List<Doctor> getDoctorsBySpecialization(String specialization) {
@@ -54,6 +61,7 @@ public class DoctorService {
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.DOCTORS, allEntries = true)
     public Doctor updateDoctor(Long id, String specialization, Boolean isAvailable) {
         Doctor doctor = getDoctorById(id);
         doctor.setSpecialization(specialization);
@@ -61,6 +69,7 @@ public class DoctorService {
         return doctorRepository.save(doctor);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.DOCTORS, allEntries = true)
     public void deleteDoctor(Long id) {
         Doctor doctor = getDoctorById(id);
         doctor.setIsAvailable(false);
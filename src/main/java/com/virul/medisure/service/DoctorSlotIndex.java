@@ -0,0 +1,412 @@
+package com.virul.medisure.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.virul.medisure.model.Appointment;
+import com.virul.medisure.model.DoctorBlockedPeriod;
+import com.virul.medisure.model.DoctorSchedule;
+import com.virul.medisure.repository.AppointmentRepository;
+import com.virul.medisure.repository.DoctorBlockedPeriodRepository;
+import com.virul.medisure.repository.DoctorScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of the bookable slots of each doctor per day.
+ * A day is a bitmap of booked slots and one of blocked slots over the doctor's slot grid
+ * for that date, loaded on first use from the schedule and one indexed query on the
+ * appointments table, then kept up to date as bookings are made and released. Free-slot
+ * queries are answered from the bitmaps without reading appointments; a search over many
+ * doctors and days loads all the missing days together with one query per table.
+ * Reserving sets the slot's bit under the day's lock, so a storm of requests for one slot
+ * is decided in memory and only the winner goes on to insert; a reservation made inside a
+ * transaction is given back if it rolls back. The unique reserved_slot constraint on
+ * appointments has the final word, e.g. against another instance; entries expire so that
+ * bookings made elsewhere are picked up.
+ */
+@Component
+@RequiredArgsConstructor
+public class DoctorSlotIndex {
+
+    /**
+     * Appointment statuses that keep their slot taken
+     */
+    public static final Set<Appointment.AppointmentStatus> HOLDING_STATUSES = EnumSet.of(
+            Appointment.AppointmentStatus.PENDING,
+            Appointment.AppointmentStatus.SCHEDULED,
+            Appointment.AppointmentStatus.CONFIRMED,
+            Appointment.AppointmentStatus.COMPLETED,
+            Appointment.AppointmentStatus.NO_SHOW);
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorScheduleRepository doctorScheduleRepository;
+    private final DoctorBlockedPeriodRepository doctorBlockedPeriodRepository;
+
+    @Value("${appointments.slots.default-start:09:00}")
+    private String defaultStart;
+
+    @Value("${appointments.slots.default-end:17:00}")
+    private String defaultEnd;
+
+    @Value("${appointments.slots.default-slot-minutes:30}")
+    private int defaultSlotMinutes;
+
+    @Value("${appointments.slots.default-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private String defaultDays;
+
+    @Value("${appointments.slot-index.spec:maximumSize=20000,expireAfterWrite=10m}")
+    private String indexSpec;
+
+    private Set<DayOfWeek> defaultWorkingDays;
+    private Cache<DayKey, DaySlots> days;
+
+    @PostConstruct
+    void start() {
+        defaultWorkingDays = Arrays.stream(defaultDays.split(","))
+                .map(String::trim)
+                .map(DayOfWeek::valueOf)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(DayOfWeek.class)));
+        days = Caffeine.from(indexSpec).build();
+    }
+
+    /**
+     * Take the slot starting at the given time. Returns the value to store as the
+     * appointment's reservedSlot; fails if the time is not a free slot start.
+     */
+    public int reserve(Long doctorId, LocalDate date, LocalTime time) {
+        if (date.atTime(time).isBefore(LocalDateTime.now())) {
+            throw new IllegalArgumentException("Please choose a time later than now.");
+        }
+        return take(doctorId, date, time);
+    }
+
+    /**
+     * Take the slot back for an appointment reinstated at its existing time, e.g. a cancelled
+     * one; unlike a new booking, the time may already have passed
+     */
+    public int reinstate(Long doctorId, LocalDate date, LocalTime time) {
+        return take(doctorId, date, time);
+    }
+
+    private int take(Long doctorId, LocalDate date, LocalTime time) {
+        DaySlots day = day(new DayKey(doctorId, date));
+        int slot = day.slotStartingAt(time);
+        if (slot < 0) {
+            throw new IllegalArgumentException(day.describeInvalidTime(date, time));
+        }
+        if (!day.tryBook(slot)) {
+            throw new IllegalArgumentException("The " + time + " slot on " + date + " is no longer available. "
+                    + "Please choose another time.");
+        }
+        releaseOnRollback(day, time);
+        return reservedSlot(time);
+    }
+
+    /**
+     * Give the slot back if the caller's transaction does not commit, as the appointment that
+     * would hold it is never saved
+     */
+    private static void releaseOnRollback(DaySlots day, LocalTime time) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    day.mark(time, false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Give back the slot an appointment held
+     */
+    public void release(Long doctorId, LocalDate date, LocalTime time) {
+        DaySlots day = days.getIfPresent(new DayKey(doctorId, date));
+        if (day != null) {
+            day.mark(time, false);
+        }
+    }
+
+    /**
+     * Start times of the slots that can still be booked on the date
+     */
+    public List<LocalTime> freeSlots(Long doctorId, LocalDate date) {
+        LocalDateTime now = LocalDateTime.now();
+        if (date.isBefore(now.toLocalDate())) {
+            return List.of();
+        }
+        LocalTime notBefore = date.isEqual(now.toLocalDate()) ? now.toLocalTime() : LocalTime.MIN;
+        return day(new DayKey(doctorId, date)).freeSlots(notBefore);
+    }
+
+    /**
+     * Free slot start times of each doctor on each date from one date to another, inclusive.
+     * Days not indexed yet are loaded together. Doctors and dates without free slots are
+     * left out.
+     */
+    public Map<Long, Map<LocalDate, List<LocalTime>>> freeSlots(Collection<Long> doctorIds,
+                                                                LocalDate from, LocalDate to) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate first = from.isBefore(now.toLocalDate()) ? now.toLocalDate() : from;
+        List<DayKey> keys = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            for (LocalDate date = first; !date.isAfter(to); date = date.plusDays(1)) {
+                keys.add(new DayKey(doctorId, date));
+            }
+        }
+
+        Map<DayKey, DaySlots> found = new HashMap<>(days.getAllPresent(keys));
+        List<DayKey> missing = keys.stream().filter(key -> !found.containsKey(key)).toList();
+        if (!missing.isEmpty()) {
+            // An entry loaded meanwhile by a booking is kept, it may already hold that booking
+            loadAll(missing).forEach((key, loaded) -> {
+                DaySlots current = days.asMap().putIfAbsent(key, loaded);
+                found.put(key, current != null ? current : loaded);
+            });
+        }
+
+        Map<Long, Map<LocalDate, List<LocalTime>>> free = new LinkedHashMap<>();
+        for (DayKey key : keys) {
+            LocalTime notBefore = key.date().isEqual(now.toLocalDate()) ? now.toLocalTime() : LocalTime.MIN;
+            List<LocalTime> slots = found.get(key).freeSlots(notBefore);
+            if (!slots.isEmpty()) {
+                free.computeIfAbsent(key.doctorId(), doctorId -> new TreeMap<>()).put(key.date(), slots);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * The working hours that apply to the doctor on that day of the week: their own, or the
+     * configured defaults (returned as an unsaved row)
+     */
+    public DoctorSchedule effectiveSchedule(Long doctorId, DayOfWeek dayOfWeek) {
+        return doctorScheduleRepository.findByDoctorIdAndDayOfWeek(doctorId, dayOfWeek)
+                .orElseGet(() -> defaultSchedule(dayOfWeek));
+    }
+
+    public static int reservedSlot(LocalTime time) {
+        return time.toSecondOfDay() / 60;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScheduleChanged(DoctorScheduleChangedEvent event) {
+        days.asMap().keySet().removeIf(key -> key.doctorId().equals(event.doctorId()));
+    }
+
+    private DoctorSchedule defaultSchedule(DayOfWeek dayOfWeek) {
+        DoctorSchedule schedule = new DoctorSchedule();
+        schedule.setDayOfWeek(dayOfWeek);
+        schedule.setStartTime(LocalTime.parse(defaultStart));
+        schedule.setEndTime(LocalTime.parse(defaultEnd));
+        schedule.setSlotMinutes(defaultSlotMinutes);
+        schedule.setWorking(defaultWorkingDays.contains(dayOfWeek));
+        return schedule;
+    }
+
+    /**
+     * The indexed day, loaded on a miss. The queries run outside the cache's compute, where
+     * they would block other keys and pin a virtual thread; a day loaded meanwhile by another
+     * request wins, as it may already hold a booking.
+     */
+    private DaySlots day(DayKey key) {
+        DaySlots day = days.getIfPresent(key);
+        if (day != null) {
+            return day;
+        }
+        DaySlots loaded = load(key);
+        DaySlots current = days.asMap().putIfAbsent(key, loaded);
+        return current != null ? current : loaded;
+    }
+
+    private DaySlots load(DayKey key) {
+        DoctorSchedule schedule = effectiveSchedule(key.doctorId(), key.date().getDayOfWeek());
+        if (!Boolean.TRUE.equals(schedule.getWorking())) {
+            return DaySlots.closed();
+        }
+        LocalDateTime dayStart = key.date().atStartOfDay();
+        return build(key.date(), schedule,
+                doctorBlockedPeriodRepository.findOverlapping(key.doctorId(), dayStart, dayStart.plusDays(1)),
+                appointmentRepository.findTimesForDoctorOnDate(key.doctorId(), key.date(), HOLDING_STATUSES));
+    }
+
+    /**
+     * Load many days at once: one query each for the schedules, blocked periods and
+     * appointments of all the doctors over the whole date range
+     */
+    private Map<DayKey, DaySlots> loadAll(Collection<DayKey> keys) {
+        Set<Long> doctorIds = keys.stream().map(DayKey::doctorId).collect(Collectors.toSet());
+        LocalDate from = keys.stream().map(DayKey::date).min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = keys.stream().map(DayKey::date).max(LocalDate::compareTo).orElseThrow();
+
+        Map<Long, Map<DayOfWeek, DoctorSchedule>> schedules = new HashMap<>();
+        for (DoctorSchedule schedule : doctorScheduleRepository.findByDoctorIdIn(doctorIds)) {
+            schedules.computeIfAbsent(schedule.getDoctor().getId(), doctorId -> new EnumMap<>(DayOfWeek.class))
+                    .put(schedule.getDayOfWeek(), schedule);
+        }
+        Map<Long, List<DoctorBlockedPeriod>> blocked = doctorBlockedPeriodRepository
+                .findOverlappingForDoctors(doctorIds, from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                .stream()
+                .collect(Collectors.groupingBy(period -> period.getDoctor().getId()));
+        Map<DayKey, List<LocalTime>> booked = new HashMap<>();
+        for (Object[] row : appointmentRepository.findTimesForDoctorsBetween(doctorIds, from, to, HOLDING_STATUSES)) {
+            booked.computeIfAbsent(new DayKey((Long) row[0], (LocalDate) row[1]), key -> new ArrayList<>())
+                    .add((LocalTime) row[2]);
+        }
+
+        Map<DayKey, DaySlots> loaded = new HashMap<>();
+        for (DayKey key : keys) {
+            DayOfWeek dayOfWeek = key.date().getDayOfWeek();
+            DoctorSchedule schedule = schedules.getOrDefault(key.doctorId(), Map.of()).get(dayOfWeek);
+            if (schedule == null) {
+                schedule = defaultSchedule(dayOfWeek);
+            }
+            loaded.put(key, Boolean.TRUE.equals(schedule.getWorking())
+                    ? build(key.date(), schedule, blocked.getOrDefault(key.doctorId(), List.of()),
+                            booked.getOrDefault(key, List.of()))
+                    : DaySlots.closed());
+        }
+        return loaded;
+    }
+
+    private static DaySlots build(LocalDate date, DoctorSchedule schedule,
+                                  List<DoctorBlockedPeriod> blockedPeriods, List<LocalTime> bookedTimes) {
+        DaySlots day = new DaySlots(schedule.getStartTime(), schedule.getEndTime(), schedule.getSlotMinutes());
+        for (DoctorBlockedPeriod period : blockedPeriods) {
+            day.block(period.getStartsAt(), period.getEndsAt(), date);
+        }
+        for (LocalTime time : bookedTimes) {
+            day.mark(time, true);
+        }
+        return day;
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    /**
+     * Slot grid of one doctor on one date with its booked and blocked bitmaps
+     */
+    private static final class DaySlots {
+
+        private final LocalTime start;
+        private final int slotMinutes;
+        private final int slotCount;
+        private final BitSet booked;
+        private final BitSet blocked;
+
+        DaySlots(LocalTime start, LocalTime end, int slotMinutes) {
+            this.start = start;
+            this.slotMinutes = slotMinutes;
+            this.slotCount = Math.max(0, (end.toSecondOfDay() - start.toSecondOfDay()) / 60 / slotMinutes);
+            this.booked = new BitSet(slotCount);
+            this.blocked = new BitSet(slotCount);
+        }
+
+        static DaySlots closed() {
+            return new DaySlots(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, 1);
+        }
+
+        /**
+         * Slot whose interval contains the time, or -1 outside working hours
+         */
+        int slotContaining(LocalTime time) {
+            int minutes = (time.toSecondOfDay() - start.toSecondOfDay()) / 60;
+            if (time.isBefore(start) || minutes / slotMinutes >= slotCount) {
+                return -1;
+            }
+            return minutes / slotMinutes;
+        }
+
+        /**
+         * Slot starting exactly at the time, or -1
+         */
+        int slotStartingAt(LocalTime time) {
+            int slot = slotContaining(time);
+            return slot >= 0 && slotStart(slot).equals(time) ? slot : -1;
+        }
+
+        LocalTime slotStart(int slot) {
+            return start.plusMinutes((long) slot * slotMinutes);
+        }
+
+        synchronized boolean tryBook(int slot) {
+            if (booked.get(slot) || blocked.get(slot)) {
+                return false;
+            }
+            booked.set(slot);
+            return true;
+        }
+
+        synchronized void mark(LocalTime time, boolean taken) {
+            int slot = slotContaining(time);
+            if (slot >= 0) {
+                booked.set(slot, taken);
+            }
+        }
+
+        /**
+         * Block every slot overlapping [from, to) on the date
+         */
+        synchronized void block(LocalDateTime from, LocalDateTime to, LocalDate date) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                LocalDateTime slotFrom = date.atTime(slotStart(slot));
+                LocalDateTime slotTo = slotFrom.plusMinutes(slotMinutes);
+                if (slotFrom.isBefore(to) && slotTo.isAfter(from)) {
+                    blocked.set(slot);
+                }
+            }
+        }
+
+        synchronized List<LocalTime> freeSlots(LocalTime notBefore) {
+            BitSet taken = (BitSet) booked.clone();
+            taken.or(blocked);
+            List<LocalTime> free = new ArrayList<>();
+            for (int slot = taken.nextClearBit(0); slot < slotCount; slot = taken.nextClearBit(slot + 1)) {
+                LocalTime slotStart = slotStart(slot);
+                if (!slotStart.isBefore(notBefore)) {
+                    free.add(slotStart);
+                }
+            }
+            return free;
+        }
+
+        String describeInvalidTime(LocalDate date, LocalTime time) {
+            if (slotCount == 0) {
+                return "The doctor does not take appointments on " + date.getDayOfWeek() + " " + date + ".";
+            }
+            if (slotContaining(time) < 0) {
+                return "Appointments on " + date + " are between " + start + " and "
+                        + slotStart(slotCount) + ".";
+            }
+            return "Appointments start every " + slotMinutes + " minutes from " + start + "; "
+                    + time + " is not a slot start.";
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.ClaimDocument;
+import com.virul.medisure.model.PolicyDocument;
+import com.virul.medisure.model.User;
+import com.virul.medisure.repository.ClaimDocumentRepository;
+import com.virul.medisure.repository.PolicyDocumentRepository;
+import com.virul.medisure.storage.DocumentStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serves stored policy and claim documents.
+ * Supports single byte ranges, strong ETags taken from the stored SHA-256 and conditional
+ * GETs. When the storage can presign URLs (S3) the client is redirected to download straight
+ * from the bucket. Files on the local filesystem are handed to Tomcat's sendfile support, so
+ * the body goes from the page cache to the socket without entering the JVM, or streamed with
+ * FileChannel.transferTo on other containers; anything else is streamed from the storage.
+ */
+@Service
+@RequiredArgsConstructor
+public class DocumentDownloadService {
+
+    // Request attributes of Tomcat's sendfile support (see org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final Set<User.UserRole> POLICY_DOCUMENT_STAFF = Set.of(
+            User.UserRole.ADMIN, User.UserRole.POLICY_MANAGER);
+    private static final Set<User.UserRole> CLAIM_DOCUMENT_STAFF = Set.of(
+            User.UserRole.ADMIN, User.UserRole.CLAIMS_MANAGER, User.UserRole.FINANCE_MANAGER);
+
+    private final PolicyDocumentRepository policyDocumentRepository;
+    private final ClaimDocumentRepository claimDocumentRepository;
+    private final FileStorageService fileStorageService;
+    private final DocumentStorage documentStorage;
+
+    /**
+     * A policy document the user may read: their own, or any for policy staff
+     */
+    public StoredDocument getPolicyDocument(Long id, User user) {
+        PolicyDocument document = policyDocumentRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found"));
+        if (!POLICY_DOCUMENT_STAFF.contains(user.getRole())
+                && !document.getPolicyHolder().getUser().getId().equals(user.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
+        }
+        // Certificates are rendered in the background; the file is incomplete until READY
+        if (!document.isReady()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Document is not ready");
+        }
+        if (document.getChecksum() == null) {
+            // Written before checksums were recorded
+            document.setChecksum(fileStorageService.checksum(document.getFileUrl()));
+            policyDocumentRepository.save(document);
+        }
+        return stored(document.getFileUrl(), document.getFileName(), document.getFileType(),
+                document.getChecksum());
+    }
+
+    /**
+     * A claim document the user may read: attached to their own claim, or any for claims staff
+     */
+    public StoredDocument getClaimDocument(Long id, User user) {
+        ClaimDocument document = claimDocumentRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Document not found"));
+        if (!CLAIM_DOCUMENT_STAFF.contains(user.getRole())
+                && !document.getClaim().getPolicyHolder().getUser().getId().equals(user.getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied");
+        }
+        if (document.getChecksum() == null) {
+            document.setChecksum(fileStorageService.checksum(document.getFileUrl()));
+            claimDocumentRepository.save(document);
+        }
+        return stored(document.getFileUrl(), document.getFileName(), document.getFileType(),
+                document.getChecksum());
+    }
+
+    /**
+     * Write the document, or the requested part of it, to the response
+     */
+    public void serve(StoredDocument document, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = "\"" + document.checksum() + "\"";
+        long length = document.size();
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, document.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, document.lastModified())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Optional<URI> presigned = documentStorage.presignedDownloadUrl(document.key(), document.fileName(),
+                document.contentType());
+        if (presigned.isPresent()) {
+            // The bucket handles ranges itself; the signed URL must not outlive its expiry in a cache
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.sendRedirect(presigned.get().toString());
+            return;
+        }
+
+        response.setContentType(document.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(document.fileName()));
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag)) {
+            // Null for multiple or malformed ranges, in which case the whole document is sent
+            long[] bounds = parseRange(range, length);
+            if (bounds != null && bounds.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            } else if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        Optional<Path> localPath = documentStorage.localPath(document.key());
+        if (localPath.isEmpty()) {
+            try (InputStream in = documentStorage.open(document.key())) {
+                StreamUtils.copyRange(in, response.getOutputStream(), start, end);
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // Tomcat sends the file itself once the servlet returns
+            request.setAttribute(SENDFILE_FILENAME_ATTR, localPath.get().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(localPath.get(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static String contentDisposition(String fileName) {
+        // Only names that need it get the RFC 5987 encoded form, plain names stay readable
+        ContentDisposition.Builder disposition = StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)
+                ? ContentDisposition.attachment().filename(fileName)
+                : ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8);
+        return disposition.build().toString();
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        // HTTP dates have second precision
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range turns a range request into a full one when the client's copy is stale
+     */
+    private static boolean rangeApplies(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.trim().equals(etag);
+    }
+
+    /**
+     * Bounds of a single "bytes=" range as {start, end} inclusive, an empty array if it
+     * cannot be satisfied, or null if the header should be ignored
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the final N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length || start > end) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private StoredDocument stored(String fileUrl, String fileName, String contentType, String checksum) {
+        DocumentStorage.ObjectInfo info;
+        try {
+            info = documentStorage.stat(fileUrl).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.NOT_FOUND, "Document file not found or not readable"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Error loading document file", e);
+        }
+        return new StoredDocument(fileUrl, fileName,
+                contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                info.size(), info.lastModified(), checksum);
+    }
+
+    /**
+     * A stored document file with the metadata needed to serve it
+     */
+    public record StoredDocument(String key, String fileName, String contentType, long size, long lastModified,
+                                 String checksum) {
+    }
+}
@@ -1,59 +1,174 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.storage.DocumentStorage;
+import com.virul.medisure.storage.InspectingInputStream;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 
+/**
+ * Stores document files in the configured DocumentStorage. The returned path is the
+ * storage key that document rows keep as their fileUrl.
+ */
 @Service
+@Timed("medisure.service")
 public class FileStorageService {
 
     private final String uploadDir = "uploads/";
 
-    public FileStorageService() {
-        // Create upload directory if it doesn't exist
-        File directory = new File(uploadDir);
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
+    private final DocumentStorage documentStorage;
+    private final ContentAddressedStore contentAddressedStore;
+    private final boolean contentAddressed;
+    private final DistributionSummary uploadedBytes;
+    private final DistributionSummary generatedBytes;
+
+    public FileStorageService(DocumentStorage documentStorage, ContentAddressedStore contentAddressedStore,
+                              @Value("${storage.content-addressed.enabled:false}") boolean contentAddressed,
+                              MeterRegistry meterRegistry) {
+        this.documentStorage = documentStorage;
+        this.contentAddressedStore = contentAddressedStore;
+        this.contentAddressed = contentAddressed;
+        // The rate of the total is the storage throughput in bytes per second
+        this.uploadedBytes = storedBytes(meterRegistry, "upload");
+        this.generatedBytes = storedBytes(meterRegistry, "generated");
+    }
+
+    private static DistributionSummary storedBytes(MeterRegistry meterRegistry, String source) {
+        return DistributionSummary.builder("medisure.storage.stored")
+                .description("Size of the documents stored")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry);
     }
 
-    public String storeFile(MultipartFile file, String folder) {
+    /**
+     * Store an upload. In content-addressed mode identical files share one blob and the
+     * folder is ignored; otherwise the file gets a unique name in the folder. The content type
+     * is taken from the file's leading bytes where they identify it, as for streamed uploads.
+     */
+    public StoredFile store(MultipartFile file, String folder) {
         try {
-            // Create folder directory if it doesn't exist
-            String folderPath = uploadDir + folder + "/";
-            File directory = new File(folderPath);
-            if (!directory.exists()) {
-                directory.mkdirs();
+            if (contentAddressed) {
+                String contentType;
+                try (InspectingInputStream head = new InspectingInputStream(file.getInputStream())) {
+                    contentType = head.peekContentType(file.getContentType());
+                }
+                return recorded(uploadedBytes, contentAddressedStore.store(file, contentType));
             }
 
             // Generate unique filename
             String originalFilename = file.getOriginalFilename();
             String extension = FilenameUtils.getExtension(originalFilename);
-            String filename = UUID.randomUUID().toString() + "." + extension;
+            String key = uploadDir + folder + "/" + UUID.randomUUID().toString() + "." + extension;
 
-            // Store file
-            Path targetLocation = Paths.get(folderPath + filename);
-            Files.copy(file.getInputStream(), targetLocation);
-
-            return folderPath + filename;
+            // Store file, hashing it on the way
+            try (InspectingInputStream in = new InspectingInputStream(file.getInputStream())) {
+                String contentType = in.peekContentType(file.getContentType());
+                documentStorage.put(key, in, file.getSize(), contentType);
+                return recorded(uploadedBytes, new StoredFile(key, in.getChecksum(), in.getSize(), contentType));
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to store file", e);
         }
     }
 
+    /**
+     * Store generated content, e.g. a rendered certificate, under the given key
+     * (or as a shared blob in content-addressed mode)
+     */
+    public StoredFile store(byte[] content, String key, String contentType) {
+        try {
+            if (contentAddressed) {
+                return recorded(generatedBytes, contentAddressedStore.store(new ByteArrayResource(content), contentType));
+            }
+            documentStorage.put(key, new ByteArrayInputStream(content), content.length, contentType);
+            String checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+            return recorded(generatedBytes, new StoredFile(key, checksum, content.length, contentType));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to store file", e);
+        }
+    }
+
+    /**
+     * Store an upload as it is read, without buffering it in memory. Size and checksum are
+     * worked out in the same pass; the content type comes from the file's leading bytes where
+     * they identify it, and is used both for the stored object and for the returned file.
+     */
+    public StoredFile store(InputStream content, String originalFilename, String declaredContentType,
+                            String folder) throws IOException {
+        InspectingInputStream in = new InspectingInputStream(content);
+        String contentType = in.peekContentType(declaredContentType);
+        if (contentAddressed) {
+            // The blob key is the hash, which is only known at the end
+            String stagedKey = contentAddressedStore.stagingKey();
+            documentStorage.put(stagedKey, in, -1, contentType);
+            return recorded(uploadedBytes, contentAddressedStore.adopt(stagedKey, in.getChecksum(), in.getSize(),
+                    contentType));
+        }
+
+        String extension = FilenameUtils.getExtension(originalFilename);
+        String key = uploadDir + folder + "/" + UUID.randomUUID().toString() + "." + extension;
+        documentStorage.put(key, in, -1, contentType);
+        return recorded(uploadedBytes, new StoredFile(key, in.getChecksum(), in.getSize(), contentType));
+    }
+
+    private static StoredFile recorded(DistributionSummary summary, StoredFile stored) {
+        summary.record(stored.size());
+        return stored;
+    }
+
+    /**
+     * Drop a document's file: a shared blob loses one reference, any other file is deleted
+     */
+    public void release(String filePath) {
+        if (contentAddressedStore.contains(filePath)) {
+            contentAddressedStore.release(filePath);
+        } else {
+            deleteFile(filePath);
+        }
+    }
+
+    /**
+     * SHA-256 of the file contents as lower-case hex
+     */
+    public String checksum(String filePath) {
+        try (InputStream in = documentStorage.open(filePath)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to checksum file", e);
+        }
+    }
+
     public void deleteFile(String filePath) {
         try {
-            Path path = Paths.get(filePath);
-            Files.deleteIfExists(path);
+            documentStorage.delete(filePath);
         } catch (IOException e) {
             throw new RuntimeException("Failed to delete file", e);
         }
     }
+
+    /**
+     * Where a stored file ended up, with its SHA-256, size and content type
+     */
+    public record StoredFile(String path, String checksum, long size, String contentType) {
+    }
 }
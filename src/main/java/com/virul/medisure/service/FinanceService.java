@@ -1,8 +1,10 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.*;
 import com.virul.medisure.repository.FinanceRecordRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -56,6 +58,19 @@ public class FinanceService {
         return financeRecordRepository.findAll();
     }
 
+    /**
+     * Keyset page of finance records ordered by id, starting after the given id
+     */
+    public CursorPage<FinanceRecord> getFinanceRecordsPage(Long after, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        List<FinanceRecord> rows = financeRecordRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, FinanceRecord::getId);
+    }
+
+    public List<FinanceRecord> getFinanceRecordsAfter(Long afterId, int limit) {
+        return financeRecordRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     public List<FinanceRecord> getFinanceRecordsByStatus(FinanceRecord.FinanceStatus status) {
         return financeRecordRepository.findByStatus(status);
     }
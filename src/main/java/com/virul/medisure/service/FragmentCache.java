@@ -0,0 +1,86 @@
+package com.virul.medisure.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pre-rendered HTML fragments for polled public endpoints.
+ * A fragment is re-rendered at most once per TTL; concurrent requests for a stale fragment
+ * wait for the one render instead of each running it. Renders run under a per-fragment
+ * ReentrantLock rather than inside the map's compute, which would block other fragments in
+ * the same bin and pin a virtual thread to its carrier for the length of the queries. Every
+ * fragment carries an ETag and a Last-Modified time that only move when the HTML actually
+ * changes, so pollers get a 304 until the content does.
+ * The active policies fragment is dropped whenever a policy change commits, right after the
+ * cached policy lists, so edits show on the next poll. The stats fragment is left to its TTL:
+ * its counts move with every registration and claim, and bounding how often they are
+ * recomputed is the point of caching it.
+ */
+@Component
+public class FragmentCache {
+
+    public static final String STATS = "stats";
+    public static final String ACTIVE_POLICIES = "activePolicies";
+
+    private final Map<String, Fragment> fragments = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> renderLocks = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public Fragment get(String name, long ttlMs, Supplier<String> renderer) {
+        Fragment current = fragments.get(name);
+        if (current != null && !current.isStale(ttlMs)) {
+            return current;
+        }
+        ReentrantLock lock = renderLocks.computeIfAbsent(name, key -> new ReentrantLock());
+        lock.lock();
+        try {
+            Fragment previous = fragments.get(name);
+            if (previous != null && !previous.isStale(ttlMs)) {
+                return previous;
+            }
+            long invalidationsBefore = invalidations.get();
+            Fragment rendered = render(previous, renderer);
+            // Invalidated while rendering: the render may predate the change, so let the next request redo it
+            fragments.put(name, invalidations.get() == invalidationsBefore ? rendered : rendered.expired());
+            return rendered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop a fragment after the data it shows has changed, so the next request renders it again
+     */
+    public void invalidate(String name) {
+        invalidations.incrementAndGet();
+        fragments.remove(name);
+    }
+
+    private Fragment render(Fragment previous, Supplier<String> renderer) {
+        String html = renderer.get();
+        long now = System.currentTimeMillis();
+        if (previous != null && previous.html().equals(html)) {
+            return new Fragment(html, previous.etag(), previous.lastModified(), now);
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(html.getBytes(StandardCharsets.UTF_8)) + "\"";
+        return new Fragment(html, etag, now, now);
+    }
+
+    public record Fragment(String html, String etag, long lastModified, long renderedAt) {
+
+        boolean isStale(long ttlMs) {
+            return System.currentTimeMillis() - renderedAt > ttlMs;
+        }
+
+        Fragment expired() {
+            return new Fragment(html, etag, lastModified, 0);
+        }
+    }
+}
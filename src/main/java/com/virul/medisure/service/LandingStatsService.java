@@ -0,0 +1,87 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.Claim;
+import com.virul.medisure.model.User;
+import com.virul.medisure.repository.ClaimRepository;
+import com.virul.medisure.repository.PolicyRepository;
+import com.virul.medisure.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Public landing page statistics.
+ * The counts are loaded at most once per refresh interval however many visitors poll for them.
+ */
+@Service
+@RequiredArgsConstructor
+public class LandingStatsService {
+
+    private final UserRepository userRepository;
+    private final PolicyRepository policyRepository;
+    private final ClaimRepository claimRepository;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @Value("${home.stats.refresh-ms:30000}")
+    private long refreshMs;
+
+    /**
+     * Returns REAL data only - no fallback placeholders
+     */
+    public Map<String, Object> getStatistics() {
+        Snapshot current = snapshot;
+        if (current == null || current.isStale(refreshMs)) {
+            // A lock rather than synchronized: loading runs queries, which would pin a virtual thread
+            refreshLock.lock();
+            try {
+                current = snapshot;
+                if (current == null || current.isStale(refreshMs)) {
+                    current = new Snapshot(loadStatistics());
+                    snapshot = current;
+                }
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+        return current.stats;
+    }
+
+    private Map<String, Object> loadStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+
+        // Total registered users - PURE DATABASE COUNT
+        stats.put("totalUsers", userRepository.count());
+
+        // Active policy holders (users with role POLICY_HOLDER) - PURE DATABASE COUNT
+        stats.put("activePolicyHolders", userRepository.countByRole(User.UserRole.POLICY_HOLDER));
+
+        // Total policies issued - PURE DATABASE COUNT
+        stats.put("totalPolicies", policyRepository.count());
+
+        // Approved claims (APPROVED_BY_FINANCE status) - PURE DATABASE COUNT
+        stats.put("approvedClaims", claimRepository.countByStatus(Claim.ClaimStatus.APPROVED_BY_FINANCE));
+
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Object> stats;
+        private final long loadedAt = System.currentTimeMillis();
+
+        Snapshot(Map<String, Object> stats) {
+            this.stats = stats;
+        }
+
+        boolean isStale(long refreshMs) {
+            return System.currentTimeMillis() - loadedAt > refreshMs;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.virul.medisure.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Streams a table as newline-delimited JSON, one object per line.
+ * Rows are read in keyset pages, each in its own short read-only transaction, and the
+ * persistence context is cleared after every page so memory stays bounded by the page size.
+ */
+@Service
+@RequiredArgsConstructor
+public class NdjsonExportService {
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    /**
+     * @param pageLoader loads up to the given number of rows with an id greater than the given id, ordered by id
+     * @param idOf       extracts the id used as the cursor
+     */
+    public <T> StreamingResponseBody export(BiFunction<Long, Integer, List<T>> pageLoader, Function<T, Long> idOf) {
+        return out -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+
+            Long cursor = 0L;
+            while (cursor != null) {
+                final long after = cursor;
+                cursor = transaction.execute(status -> {
+                    List<T> rows = pageLoader.apply(after, EXPORT_PAGE_SIZE);
+                    for (T row : rows) {
+                        writeLine(out, row);
+                    }
+                    Long next = rows.size() < EXPORT_PAGE_SIZE ? null : idOf.apply(rows.get(rows.size() - 1));
+                    entityManager.clear();
+                    return next;
+                });
+                out.flush();
+            }
+        };
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write(NEWLINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
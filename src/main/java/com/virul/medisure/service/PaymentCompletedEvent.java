@@ -0,0 +1,12 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.Payment;
+
+/**
+ * Published once after a payment's gateway answer has been recorded, inside the transaction that
+ * clears the payment's fulfilment flag. Listeners that join it (plain @EventListener methods)
+ * commit or roll back together with that flag, so a failed fulfilment is attempted again while the
+ * recorded status stands. The message is null when fulfilment resumes after a restart.
+ */
+public record PaymentCompletedEvent(Long paymentId, String paymentType, Payment.PaymentStatus status, String message) {
+}
@@ -0,0 +1,19 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.Payment;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Charges a payment with an external provider.
+ * Implementations must not block the caller; the returned future completes when the
+ * provider answers. A payment can be submitted again after a restart, so the transaction
+ * id should be passed to the provider as the idempotency key.
+ */
+public interface PaymentGateway {
+
+    CompletableFuture<ChargeResult> charge(Payment payment);
+
+    record ChargeResult(boolean approved, String message) {
+    }
+}
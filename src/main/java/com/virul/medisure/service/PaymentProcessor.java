@@ -0,0 +1,222 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.Payment;
+import com.virul.medisure.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Drives payments through PENDING -> SUCCESS / FAILED off the request thread.
+ * The gateway is called without blocking; its answer is handed to a small worker pool that
+ * records it on its own, flagging the payment for fulfilment in the same update. Fulfilment then
+ * publishes a PaymentCompletedEvent in a second transaction that clears the flag, so the
+ * follow-up work (e.g. issuing the purchased policy) commits together with the flag or not at
+ * all, and never takes the recorded answer down with it. Either step is retried after a backoff
+ * when it fails or finds the pool saturated. On the next start, payments still PENDING, which
+ * never got an answer recorded, are resubmitted to the gateway, and flagged payments are
+ * fulfilled again. Both updates are conditional, so a payment is recorded and fulfilled exactly
+ * once even if it was submitted twice.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentProcessor {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentGateway paymentGateway;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${payment.processor.threads:4}")
+    private int threads;
+
+    @Value("${payment.processor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${payment.processor.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.processor.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // A full queue rejects the work instead of running it on the gateway's thread
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-processor-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-processor-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Send a PENDING payment to the gateway. If called inside a transaction the payment
+     * is only sent once that transaction has committed.
+     */
+    public void submit(Payment payment) {
+        Long paymentId = payment.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    charge(payment, paymentId);
+                }
+            });
+        } else {
+            charge(payment, paymentId);
+        }
+    }
+
+    /**
+     * Resubmit payments that never got a gateway answer recorded, and finish the fulfilment of
+     * those that did, left over by a previous run
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingPayments() {
+        var pending = paymentRepository.findByStatus(Payment.PaymentStatus.PENDING);
+        if (!pending.isEmpty()) {
+            log.info("Resubmitting {} pending payments", pending.size());
+            pending.forEach(this::submit);
+        }
+        var unfulfilled = paymentRepository.findByFulfilmentPendingTrue();
+        if (!unfulfilled.isEmpty()) {
+            log.info("Resuming fulfilment of {} payments", unfulfilled.size());
+            unfulfilled.forEach(payment -> dispatchFulfilment(payment.getId(), null, 1));
+        }
+    }
+
+    private void charge(Payment payment, Long paymentId) {
+        paymentGateway.charge(payment).whenComplete((result, error) -> {
+            if (error != null) {
+                log.warn("Gateway error for payment {}: {}", paymentId, error.getMessage());
+                dispatchRecord(paymentId, Payment.PaymentStatus.FAILED, error.getMessage(), 1);
+            } else {
+                dispatchRecord(paymentId, result.approved() ? Payment.PaymentStatus.SUCCESS : Payment.PaymentStatus.FAILED,
+                        result.message(), 1);
+            }
+        });
+    }
+
+    private void dispatchRecord(Long paymentId, Payment.PaymentStatus status, String message, int attempt) {
+        dispatch("recording", paymentId, attempt,
+                () -> record(paymentId, status, message),
+                next -> dispatchRecord(paymentId, status, message, next));
+    }
+
+    private void dispatchFulfilment(Long paymentId, String message, int attempt) {
+        dispatch("fulfilment", paymentId, attempt,
+                () -> fulfil(paymentId, message),
+                next -> dispatchFulfilment(paymentId, message, next));
+    }
+
+    /**
+     * Hand a step to the workers, scheduling it again if it fails or the workers are saturated
+     */
+    private void dispatch(String step, Long paymentId, int attempt, BooleanSupplier work, IntConsumer again) {
+        try {
+            executor.execute(() -> {
+                if (!work.getAsBoolean()) {
+                    retry(step, paymentId, attempt, again);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Payment workers saturated, delaying {} of payment {}", step, paymentId);
+            retry(step, paymentId, attempt, again);
+        }
+    }
+
+    private void retry(String step, Long paymentId, int attempt, IntConsumer again) {
+        if (attempt >= maxAttempts) {
+            log.error("Giving up on {} of payment {} after {} attempts; it is picked up again on the next start",
+                    step, paymentId, attempt);
+            return;
+        }
+        try {
+            retryScheduler.schedule(() -> again.accept(attempt + 1), retryBackoffMs * attempt, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Shutting down, {} of payment {} is picked up again on the next start", step, paymentId);
+        }
+    }
+
+    /**
+     * Record the gateway's answer and flag the payment for fulfilment. Returns false if the
+     * update failed.
+     */
+    private boolean record(Long paymentId, Payment.PaymentStatus status, String message) {
+        try {
+            int updated = paymentRepository.recordGatewayResult(paymentId, status, LocalDateTime.now());
+            if (updated > 0) {
+                dispatchFulfilment(paymentId, message, 1);
+            }
+            // Otherwise already recorded by an earlier submission, which also started its fulfilment
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to record gateway answer for payment {}: {}", paymentId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Clear the fulfilment flag and run the listeners of the PaymentCompletedEvent in one
+     * transaction. Returns false if that failed and was rolled back.
+     */
+    private boolean fulfil(Long paymentId, String message) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (paymentRepository.claimFulfilment(paymentId) == 0) {
+                    // Already fulfilled by an earlier attempt
+                    return;
+                }
+                Payment payment = paymentRepository.findById(paymentId).orElseThrow();
+                eventPublisher.publishEvent(
+                        new PaymentCompletedEvent(paymentId, payment.getPaymentType(), payment.getStatus(), message));
+            });
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to fulfil payment {}: {}", paymentId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
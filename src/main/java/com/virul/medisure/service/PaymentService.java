@@ -1,11 +1,14 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.model.Payment;
 import com.virul.medisure.model.Policy;
 import com.virul.medisure.model.PolicyHolder;
 import com.virul.medisure.model.User;
 import com.virul.medisure.repository.PaymentRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -14,6 +17,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Service
+@Timed("medisure.service")
 @RequiredArgsConstructor
 public class PaymentService {
 
@@ -38,18 +42,11 @@ public class PaymentService {
         return paymentRepository.save(payment);
     }
 
-    public Payment processDummyPayment(Payment payment) {
-        // Simulate payment processing
-        try {
-            Thread.sleep(500); // Simulate processing delay
-            payment.setStatus(Payment.PaymentStatus.SUCCESS);
-            payment.setUpdatedAt(LocalDateTime.now());
-            return paymentRepository.save(payment);
-        } catch (InterruptedException e) {
-            payment.setStatus(Payment.PaymentStatus.FAILED);
-            payment.setUpdatedAt(LocalDateTime.now());
-            return paymentRepository.save(payment);
-        }
+    public Payment linkPolicyHolder(Long paymentId, PolicyHolder policyHolder) {
+        Payment payment = getPaymentById(paymentId);
+        payment.setPolicyHolder(policyHolder);
+        payment.setUpdatedAt(LocalDateTime.now());
+        return paymentRepository.save(payment);
     }
 
     public Payment updatePaymentStatus(Long paymentId, Payment.PaymentStatus status) {
@@ -73,6 +70,19 @@ public class PaymentService {
         return paymentRepository.findAll();
     }
 
+    /**
+     * Keyset page of payments ordered by id, starting after the given id
+     */
+    public CursorPage<Payment> getPaymentsPage(Long after, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        List<Payment> rows = paymentRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, Payment::getId);
+    }
+
+    public List<Payment> getPaymentsAfter(Long afterId, int limit) {
+        return paymentRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     public Payment getPaymentById(Long id) {
         return paymentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
@@ -0,0 +1,184 @@
+package com.virul.medisure.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.Paragraph;
+import com.virul.medisure.model.PolicyHolder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-layout policy certificate.
+ * The font programs are loaded once, and everything that is the same on every certificate
+ * (headings, table grid, row labels, footer) is rendered once into a skeleton PDF. A
+ * certificate is the skeleton opened in stamping mode with only the holder's values drawn
+ * into their cells. Safe to use from several threads; each render gets its own document.
+ */
+@Component
+public class PolicyCertificateTemplate {
+
+    private static final List<String> ROW_LABELS = List.of(
+            "Policy Holder Name:", "Email:", "Phone:", "Policy Name:", "Policy Type:", "Coverage Amount:",
+            "Premium Amount:", "Policy Start Date:", "Policy End Date:", "Status:");
+
+    private static final PageSize PAGE_SIZE = PageSize.A4;
+    private static final float TABLE_LEFT = 48;
+    private static final float TABLE_TOP = 720;
+    private static final float LABEL_WIDTH = 200;
+    private static final float VALUE_WIDTH = 300;
+    private static final float ROW_HEIGHT = 22;
+    private static final float CELL_PADDING = 5;
+    private static final float TEXT_SIZE = 12;
+    private static final float DESCRIPTION_TOP = TABLE_TOP - ROW_LABELS.size() * ROW_HEIGHT - 60;
+    private static final float DESCRIPTION_HEIGHT = 220;
+
+    private FontProgram regularProgram;
+    private FontProgram boldProgram;
+    private FontProgram italicProgram;
+    private byte[] skeleton;
+
+    @PostConstruct
+    void init() throws IOException {
+        regularProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        boldProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        italicProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+        skeleton = renderSkeleton();
+    }
+
+    /**
+     * Write the certificate for the given values to out. The stream is closed.
+     */
+    public void render(CertificateFields fields, OutputStream out) throws IOException {
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(skeleton)), new PdfWriter(out))) {
+            PdfFont regular = font(regularProgram);
+            PdfCanvas canvas = new PdfCanvas(pdf.getFirstPage());
+
+            List<String> values = fields.rowValues();
+            float maxWidth = VALUE_WIDTH - 2 * CELL_PADDING;
+            for (int row = 0; row < values.size(); row++) {
+                String value = fit(values.get(row) != null ? values.get(row) : "N/A", regular, maxWidth);
+                drawText(canvas, regular, TEXT_SIZE, value, TABLE_LEFT + LABEL_WIDTH + CELL_PADDING, baseline(row));
+            }
+
+            // The description is the only free-flowing text; whatever does not fit the box is dropped
+            Rectangle descriptionBox = new Rectangle(TABLE_LEFT, DESCRIPTION_TOP - DESCRIPTION_HEIGHT,
+                    LABEL_WIDTH + VALUE_WIDTH, DESCRIPTION_HEIGHT);
+            try (Canvas description = new Canvas(canvas, descriptionBox)) {
+                description.add(new Paragraph(fields.description() != null
+                        ? fields.description() : "Standard health insurance policy")
+                        .setFont(regular)
+                        .setFontSize(TEXT_SIZE));
+            }
+        }
+    }
+
+    private byte[] renderSkeleton() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PdfDocument pdf = new PdfDocument(new PdfWriter(out))) {
+            PdfFont bold = font(boldProgram);
+            PdfFont italic = font(italicProgram);
+            PdfCanvas canvas = new PdfCanvas(pdf.addNewPage(PAGE_SIZE));
+
+            drawCentered(canvas, bold, 20, "MEDISUR HEALTH INSURANCE", 790);
+            drawCentered(canvas, bold, 16, "POLICY CERTIFICATE", 760);
+
+            canvas.setLineWidth(0.5f);
+            for (int row = 0; row < ROW_LABELS.size(); row++) {
+                float top = TABLE_TOP - row * ROW_HEIGHT;
+                canvas.rectangle(TABLE_LEFT, top - ROW_HEIGHT, LABEL_WIDTH, ROW_HEIGHT)
+                        .rectangle(TABLE_LEFT + LABEL_WIDTH, top - ROW_HEIGHT, VALUE_WIDTH, ROW_HEIGHT)
+                        .stroke();
+                drawText(canvas, bold, TEXT_SIZE, ROW_LABELS.get(row), TABLE_LEFT + CELL_PADDING, baseline(row));
+            }
+
+            drawText(canvas, bold, TEXT_SIZE, "Policy Description:", TABLE_LEFT, DESCRIPTION_TOP + 15);
+            drawCentered(canvas, italic, 10, "This is a computer-generated document. No signature is required.", 80);
+        }
+        return out.toByteArray();
+    }
+
+    private static PdfFont font(FontProgram program) {
+        // PdfFont instances belong to one document, so they are created per render from the shared program
+        return PdfFontFactory.createFont(program, PdfEncodings.WINANSI);
+    }
+
+    private static float baseline(int row) {
+        return TABLE_TOP - row * ROW_HEIGHT - ROW_HEIGHT + 7;
+    }
+
+    private static void drawCentered(PdfCanvas canvas, PdfFont font, float size, String text, float y) {
+        float x = (PAGE_SIZE.getWidth() - font.getWidth(text, size)) / 2;
+        drawText(canvas, font, size, text, x, y);
+    }
+
+    private static void drawText(PdfCanvas canvas, PdfFont font, float size, String text, float x, float y) {
+        canvas.beginText()
+                .setFontAndSize(font, size)
+                .moveText(x, y)
+                .showText(text)
+                .endText();
+    }
+
+    /**
+     * Shorten text with a trailing "..." until it fits the cell width
+     */
+    private static String fit(String text, PdfFont font, float maxWidth) {
+        if (font.getWidth(text, TEXT_SIZE) <= maxWidth) {
+            return text;
+        }
+        String shortened = text;
+        while (!shortened.isEmpty() && font.getWidth(shortened + "...", TEXT_SIZE) > maxWidth) {
+            shortened = shortened.substring(0, shortened.length() - 1);
+        }
+        return shortened + "...";
+    }
+
+    /**
+     * The per-holder values of a certificate, copied out of the entities so rendering needs no session
+     */
+    public record CertificateFields(Long policyHolderId, String holderName, String email, String phone,
+                                    String policyName, String policyType, String coverageAmount,
+                                    String premiumAmount, String startDate, String endDate, String status,
+                                    String description) {
+
+        public static CertificateFields of(PolicyHolder policyHolder) {
+            return new CertificateFields(
+                    policyHolder.getId(),
+                    policyHolder.getUser().getFullName(),
+                    policyHolder.getUser().getEmail(),
+                    policyHolder.getUser().getPhone(),
+                    policyHolder.getPolicy().getName(),
+                    policyHolder.getPolicy().getType().toString(),
+                    "Rs. " + policyHolder.getPolicy().getCoverageAmount(),
+                    "Rs. " + policyHolder.getPolicy().getPremiumAmount(),
+                    policyHolder.getStartDate().format(DateTimeFormatter.ISO_DATE),
+                    policyHolder.getEndDate().format(DateTimeFormatter.ISO_DATE),
+                    policyHolder.getStatus().toString(),
+                    policyHolder.getPolicy().getDescription());
+        }
+
+        List<String> rowValues() {
+            return Arrays.asList(holderName, email, phone, policyName, policyType, coverageAmount,
+                    premiumAmount, startDate, endDate, status);
+        }
+    }
+}
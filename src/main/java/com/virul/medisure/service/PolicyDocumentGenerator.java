@@ -0,0 +1,267 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.PolicyDocument;
+import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.repository.PolicyDocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders policy certificates in the background.
+ * A document row is created as GENERATING with its target path, and a job is queued on a
+ * bounded worker pool. The certificate is rendered and stored outside any transaction; only
+ * reading the document and recording the outcome hold a connection. Failed renders, and jobs
+ * that could not reach the database, are retried with exponential backoff; after the last
+ * attempt the document is marked FAILED. Documents still GENERATING at startup are requeued.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PolicyDocumentGenerator {
+
+    private final PolicyDocumentRepository policyDocumentRepository;
+    private final PdfService pdfService;
+    private final FileStorageService fileStorageService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${documents.generation.threads:2}")
+    private int threads;
+
+    @Value("${documents.generation.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${documents.generation.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${documents.generation.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService retryScheduler;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "document-generator-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-generator-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create a GENERATING certificate for the policy holder and queue it for rendering.
+     * Inside a transaction the job is queued once the transaction commits.
+     */
+    public PolicyDocument requestCertificate(PolicyHolder policyHolder) {
+        PolicyDocument document = new PolicyDocument();
+        document.setPolicyHolder(policyHolder);
+        document.setFileName("Policy_Certificate_" + policyHolder.getId() + ".pdf");
+        document.setFileUrl(pdfService.newPolicyDocumentPath(policyHolder));
+        document.setFileType("application/pdf");
+        document.setDocumentType(PolicyDocument.DocumentType.POLICY_CERTIFICATE);
+        document.setDescription("Policy certificate for " + policyHolder.getPolicy().getName());
+        document.setStatus(PolicyDocument.DocumentStatus.GENERATING);
+
+        PolicyDocument saved = policyDocumentRepository.save(document);
+        Long documentId = saved.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(documentId);
+                }
+            });
+        } else {
+            enqueue(documentId);
+        }
+        return saved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingDocuments() {
+        var pending = policyDocumentRepository.findByStatus(PolicyDocument.DocumentStatus.GENERATING);
+        if (!pending.isEmpty()) {
+            log.info("Requeueing {} documents left generating", pending.size());
+            pending.forEach(document -> enqueue(document.getId()));
+        }
+    }
+
+    private void enqueue(Long documentId) {
+        enqueue(documentId, 0);
+    }
+
+    /**
+     * Queue a render; errors is how many times in a row the document could not even be read or
+     * updated, e.g. because the database was down
+     */
+    private void enqueue(Long documentId, int errors) {
+        try {
+            workers.execute(() -> generate(documentId, errors));
+        } catch (RejectedExecutionException e) {
+            // Queue is full; try again after the backoff instead of dropping the job
+            log.warn("Document queue full, delaying document {}", documentId);
+            retryScheduler.schedule(() -> enqueue(documentId, errors), retryBackoffMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void generate(Long documentId, int errors) {
+        try {
+            Integer failedAttempt = renderOnce(documentId);
+            if (failedAttempt != null) {
+                retryScheduler.schedule(() -> enqueue(documentId), backoff(failedAttempt), TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            int failures = errors + 1;
+            if (failures < maxAttempts) {
+                log.warn("Could not process document {}, retrying: {}", documentId, e.getMessage());
+                retryScheduler.schedule(() -> enqueue(documentId, failures), backoff(failures), TimeUnit.MILLISECONDS);
+            } else {
+                log.error("Failed to process document {}: {}", documentId, e.getMessage(), e);
+                markFailed(documentId, e.getMessage());
+            }
+        }
+    }
+
+    private long backoff(int attempt) {
+        return retryBackoffMs * (1L << (attempt - 1));
+    }
+
+    /**
+     * One render attempt. Returns the attempt number if it failed and should be retried.
+     * The certificate is rendered and stored outside any transaction, so no connection is held
+     * during the file or S3 write; only reading the document and recording the outcome are
+     * transactions.
+     */
+    private Integer renderOnce(Long documentId) {
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        Job job = readTransaction.execute(status -> policyDocumentRepository.findWithPolicyHolderById(documentId)
+                .filter(document -> document.getStatus() == PolicyDocument.DocumentStatus.GENERATING)
+                .map(document -> new Job(PolicyCertificateTemplate.CertificateFields.of(document.getPolicyHolder()),
+                        document.getFileUrl(), document.getFileType()))
+                .orElse(null));
+        if (job == null) {
+            return null;
+        }
+
+        FileStorageService.StoredFile stored = null;
+        String failure = null;
+        try {
+            byte[] pdf = pdfService.renderCertificate(job.fields());
+            stored = fileStorageService.store(pdf, job.key(), job.contentType());
+        } catch (Exception e) {
+            failure = e.getMessage();
+        }
+        try {
+            return record(documentId, stored, failure);
+        } catch (RuntimeException e) {
+            releaseUnrecorded(stored);
+            throw e;
+        }
+    }
+
+    private void releaseUnrecorded(FileStorageService.StoredFile stored) {
+        if (stored == null) {
+            return;
+        }
+        try {
+            fileStorageService.release(stored.path());
+        } catch (Exception e) {
+            log.warn("Could not remove unrecorded file {}: {}", stored.path(), e.getMessage());
+        }
+    }
+
+    /**
+     * Record the outcome of an attempt on the document; returns the attempt number if it
+     * failed and should be retried
+     */
+    private Integer record(Long documentId, FileStorageService.StoredFile stored, String failure) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            PolicyDocument document = policyDocumentRepository.findWithPolicyHolderById(documentId).orElse(null);
+            if (document == null || document.getStatus() != PolicyDocument.DocumentStatus.GENERATING) {
+                releaseUnrecorded(stored);
+                return null;
+            }
+
+            int attempts = document.getGenerationAttempts() == null ? 1 : document.getGenerationAttempts() + 1;
+            document.setGenerationAttempts(attempts);
+            if (stored != null) {
+                if (document.getFileUrl().equals(document.getPolicyHolder().getPolicyDocumentUrl())) {
+                    document.getPolicyHolder().setPolicyDocumentUrl(stored.path());
+                }
+                document.setFileUrl(stored.path());
+                document.setFileSize(stored.size());
+                document.setChecksum(stored.checksum());
+                document.setStatus(PolicyDocument.DocumentStatus.READY);
+                document.setFailureReason(null);
+                return null;
+            }
+
+            log.warn("Attempt {} to generate document {} failed: {}", attempts, documentId, failure);
+            document.setFailureReason(failure);
+            if (attempts >= maxAttempts) {
+                document.setStatus(PolicyDocument.DocumentStatus.FAILED);
+                return null;
+            }
+            return attempts;
+        });
+    }
+
+    /**
+     * Give up on a document that could not be processed. If even this fails it stays
+     * GENERATING and is requeued on the next start.
+     */
+    private void markFailed(Long documentId, String reason) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    policyDocumentRepository.findById(documentId)
+                            .filter(document -> document.getStatus() == PolicyDocument.DocumentStatus.GENERATING)
+                            .ifPresent(document -> {
+                                document.setStatus(PolicyDocument.DocumentStatus.FAILED);
+                                document.setFailureReason(reason);
+                            }));
+        } catch (Exception e) {
+            log.error("Could not mark document {} failed: {}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * What a render needs, read from the database before rendering
+     */
+    private record Job(PolicyCertificateTemplate.CertificateFields fields, String key, String contentType) {
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -3,14 +3,10 @@ package com.virul.medisure.service;
 import com.virul.medisure.model.PolicyDocument;
 import com.virul.medisure.model.PolicyHolder;
 import com.virul.medisure.repository.PolicyDocumentRepository;
+import com.virul.medisure.storage.DocumentStorage;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 
 @Service
@@ -18,6 +14,8 @@ import java.util.List;
 public class PolicyDocumentService {
 
     private final PolicyDocumentRepository policyDocumentRepository;
+    private final FileStorageService fileStorageService;
+    private final DocumentStorage documentStorage;
 
     /**
      * Save a policy document record to database
@@ -34,10 +32,7 @@ public class PolicyDocumentService {
         
         // Calculate file size
         try {
-            File file = new File(fileUrl);
-            if (file.exists()) {
-                document.setFileSize(file.length());
-            }
+            documentStorage.stat(fileUrl).ifPresent(info -> document.setFileSize(info.size()));
         } catch (Exception e) {
             // File size calculation failed, continue without it
         }
@@ -67,36 +62,15 @@ public class PolicyDocumentService {
                 .orElseThrow(() -> new IllegalStateException("Document not found"));
     }
 
-    /**
-     * Get document as downloadable resource
-     */
-    public Resource getDocumentAsResource(PolicyDocument document) {
-        try {
-            Path filePath = Paths.get(document.getFileUrl()).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new IllegalStateException("Document file not found or not readable");
-            }
-        } catch (Exception e) {
-            throw new IllegalStateException("Error loading document file", e);
-        }
-    }
-
     /**
      * Delete a document
      */
     public void deleteDocument(Long id) {
         PolicyDocument document = getDocumentById(id);
         
-        // Delete physical file
+        // Delete the physical file, or drop this document's reference to a shared blob
         try {
-            File file = new File(document.getFileUrl());
-            if (file.exists()) {
-                file.delete();
-            }
+            fileStorageService.release(document.getFileUrl());
         } catch (Exception e) {
             // Continue even if file deletion fails
         }
@@ -0,0 +1,143 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.AuditLog;
+import com.virul.medisure.model.JobCheckpoint;
+import com.virul.medisure.model.PolicyHolder;
+import com.virul.medisure.repository.JobCheckpointRepository;
+import com.virul.medisure.repository.PolicyHolderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Expires the active policies whose end date has been reached, nightly and on demand.
+ * Due holders are taken in keyset chunks of ids. Each chunk is one transaction: a single
+ * set-based UPDATE over the chunk's id range, one JDBC batch of audit entries and a
+ * checkpoint update. A run that stops part way resumes after the last committed chunk
+ * instead of starting over.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PolicyExpiryJob {
+
+    static final String JOB_NAME = "policy-expiry";
+
+    private static final String SYSTEM_USER = "system";
+
+    private final PolicyHolderRepository policyHolderRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final DashboardStatsService dashboardStatsService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${policies.expiry.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${policies.expiry.cron:0 5 0 * * *}")
+    public void runNightly() {
+        try {
+            run(SYSTEM_USER);
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled policy expiry: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Scheduled policy expiry failed, the next run resumes from the checkpoint", e);
+        }
+    }
+
+    public ExpiryReport run(String performedBy) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Policy expiry is already running");
+        }
+
+        long startedAt = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        long expired = 0;
+        int chunks = 0;
+        try {
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME)
+                    .filter(found -> today.equals(found.getRunDate()) && !found.getCompleted())
+                    .orElseGet(() -> new JobCheckpoint(JOB_NAME, today, 0L, 0L, false, LocalDateTime.now()));
+            long resumedAfter = checkpoint.getLastId();
+            if (resumedAfter > 0) {
+                log.info("Resuming policy expiry for {} after holder {}", today, resumedAfter);
+            }
+
+            while (!checkpoint.getCompleted()) {
+                Integer count = transactionTemplate.execute(tx -> expireChunk(checkpoint, today, performedBy));
+                expired += count;
+                chunks++;
+            }
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            ExpiryReport report = new ExpiryReport(expired, chunks, resumedAfter, elapsedMs);
+            log.info("Policy expiry for {} finished: {}", today, report);
+            return report;
+        } finally {
+            if (expired > 0) {
+                dashboardStatsService.invalidatePolicyHolderCounters();
+            }
+            running.set(false);
+        }
+    }
+
+    /**
+     * Expire the next chunk of due holders after the checkpoint and move the checkpoint past
+     * it. Returns the number of holders expired.
+     */
+    private int expireChunk(JobCheckpoint checkpoint, LocalDate today, String performedBy) {
+        long after = checkpoint.getLastId();
+        List<Long> due = policyHolderRepository.findIdsEndingBy(
+                PolicyHolder.PolicyStatus.ACTIVE, today, after, Limit.of(chunkSize));
+
+        int expired = 0;
+        if (!due.isEmpty()) {
+            long upTo = due.get(due.size() - 1);
+            // Marks this chunk's rows, so the audit entries cover exactly what the UPDATE changed
+            LocalDateTime expiredAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            expired = policyHolderRepository.updateStatusEndingBy(PolicyHolder.PolicyStatus.ACTIVE,
+                    PolicyHolder.PolicyStatus.EXPIRED, today, after, upTo, expiredAt);
+
+            auditLogWriter.writeAll(policyHolderRepository
+                    .findUpdatedBetween(after, upTo, PolicyHolder.PolicyStatus.EXPIRED, expiredAt)
+                    .stream()
+                    .map(row -> auditEntry((Long) row[0], (LocalDate) row[1], (String) row[2], performedBy, expiredAt))
+                    .toList());
+            checkpoint.setLastId(upTo);
+        }
+
+        checkpoint.setProcessed(checkpoint.getProcessed() + expired);
+        checkpoint.setCompleted(due.size() < chunkSize);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        jobCheckpointRepository.save(checkpoint);
+        return expired;
+    }
+
+    private static AuditLog auditEntry(Long policyHolderId, LocalDate endDate, String policyName,
+                                       String performedBy, LocalDateTime timestamp) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setEntityType(AuditLog.EntityType.POLICY_HOLDER);
+        auditLog.setEntityId(policyHolderId);
+        auditLog.setAction(AuditLog.Action.UPDATE);
+        auditLog.setPerformedBy(performedBy);
+        auditLog.setTimestamp(timestamp);
+        auditLog.setDetails("Policy automatically expired. End date: " + endDate + ". Policy: " + policyName);
+        return auditLog;
+    }
+
+    public record ExpiryReport(long expired, int chunks, long resumedAfterId, long elapsedMs) {
+    }
+}
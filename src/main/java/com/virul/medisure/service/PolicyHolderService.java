@@ -2,31 +2,39 @@ package com.virul.medisure.service;
 
 import com.virul.medisure.model.Payment;
 import com.virul.medisure.model.Policy;
+import com.virul.medisure.model.PolicyDocument;
 import com.virul.medisure.model.PolicyHolder;
 import com.virul.medisure.model.User;
 import com.virul.medisure.repository.PolicyHolderRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@Timed("medisure.service")
 @RequiredArgsConstructor
 public class PolicyHolderService {
 
     private static final String POLICY_HOLDER_NOT_FOUND = "Policy holder not found";
     private static final String POLICY_SUFFIX = ". Policy: ";
+    private static final String POLICY_PURCHASE = "POLICY_PURCHASE";
 
     private final PolicyHolderRepository policyHolderRepository;
     private final UserService userService;
     private final PolicyService policyService;
     private final PaymentService paymentService;
     private final AuditLogService auditLogService;
+    private final DashboardStatsService dashboardStatsService;
+    private final PaymentProcessor paymentProcessor;
+    private final PolicyDocumentGenerator policyDocumentGenerator;
 
     public PolicyHolder purchasePolicy(Long userId, Long policyId) {
         User user = userService.getUserById(userId);
@@ -53,10 +61,16 @@ public class PolicyHolderService {
         // Change user role from USER to POLICY_HOLDER
         userService.changeUserRole(userId, User.UserRole.POLICY_HOLDER);
 
-        return policyHolderRepository.save(policyHolder);
+        PolicyHolder savedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(null, null, savedPolicyHolder);
+        return savedPolicyHolder;
     }
 
-    public Map<String, Object> purchasePolicyWithPayment(Long userId, Long policyId) {
+    /**
+     * Start a policy purchase. The payment is created PENDING and charged in the background;
+     * the policy holder is created once the payment succeeds (see onPaymentCompleted).
+     */
+    public Payment startPolicyPurchase(Long userId, Long policyId) {
         User user = userService.getUserById(userId);
         Policy policy = policyService.getPolicyById(policyId);
 
@@ -72,20 +86,31 @@ public class PolicyHolderService {
         Payment payment = paymentService.createPayment(
             user, 
             policy, 
-            null, // PolicyHolder will be set after creation
+            null, // PolicyHolder will be set after the payment succeeds
             totalAmount, 
             Payment.PaymentMethod.DUMMY, 
-            "POLICY_PURCHASE"
+            POLICY_PURCHASE
         );
 
-        // Process dummy payment
-        payment = paymentService.processDummyPayment(payment);
+        paymentProcessor.submit(payment);
+        return payment;
+    }
 
-        // Check if payment was successful
-        if (payment.getStatus() != Payment.PaymentStatus.SUCCESS) {
-            throw new IllegalStateException("Payment failed. Please try again.");
+    /**
+     * Complete a policy purchase once its payment has succeeded. Runs in the payment's fulfilment
+     * transaction, so a failure here leaves the payment flagged for another attempt.
+     */
+    @EventListener
+    @Transactional
+    public void onPaymentCompleted(PaymentCompletedEvent event) {
+        if (!POLICY_PURCHASE.equals(event.paymentType()) || event.status() != Payment.PaymentStatus.SUCCESS) {
+            return;
         }
 
+        Payment payment = paymentService.getPaymentById(event.paymentId());
+        User user = payment.getUser();
+        Policy policy = payment.getPolicy();
+
         // Check if user already has an active policy
         PolicyHolder policyHolder;
         if (hasActivePolicy(user)) {
@@ -102,34 +127,36 @@ public class PolicyHolderService {
             policyHolder.setFinanceOfficerApproved(false);
 
             // Change user role from USER to POLICY_HOLDER
-            userService.changeUserRole(userId, User.UserRole.POLICY_HOLDER);
+            userService.changeUserRole(user.getId(), User.UserRole.POLICY_HOLDER);
 
             policyHolder = policyHolderRepository.save(policyHolder);
+            dashboardStatsService.recordPolicyHolderChange(null, null, policyHolder);
         }
 
         // Update payment with policy holder reference
-        payment.setPolicyHolder(policyHolder);
-        payment = paymentService.updatePaymentStatus(payment.getId(), Payment.PaymentStatus.SUCCESS);
-
-        // Prepare result
-        Map<String, Object> result = new HashMap<>();
-        result.put("policyHolder", policyHolder);
-        result.put("payment", payment);
+        paymentService.linkPolicyHolder(payment.getId(), policyHolder);
 
-        return result;
+        // Render the certificate in the background once this transaction commits
+        PolicyDocument certificate = policyDocumentGenerator.requestCertificate(policyHolder);
+        policyHolder.setPolicyDocumentUrl(certificate.getFileUrl());
     }
 
     public PolicyHolder upgradePolicy(User user, Policy newPolicy) {
         PolicyHolder existingPolicyHolder = policyHolderRepository.findByUser(user)
                 .orElseThrow(() -> new IllegalStateException(POLICY_HOLDER_NOT_FOUND));
 
+        PolicyHolder.PolicyStatus previousStatus = existingPolicyHolder.getStatus();
+        Policy previousPolicy = existingPolicyHolder.getPolicy();
+
         // Update the policy
         existingPolicyHolder.setPolicy(newPolicy);
         existingPolicyHolder.setStartDate(LocalDate.now());
         existingPolicyHolder.setEndDate(LocalDate.now().plusMonths(newPolicy.getDurationMonths()));
         existingPolicyHolder.setStatus(PolicyHolder.PolicyStatus.ACTIVE);
 
-        return policyHolderRepository.save(existingPolicyHolder);
+        PolicyHolder updatedPolicyHolder = policyHolderRepository.save(existingPolicyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, previousPolicy, updatedPolicyHolder);
+        return updatedPolicyHolder;
     }
 
     public List<PolicyHolder> getAllPolicyHolders() {
@@ -158,8 +185,11 @@ public class PolicyHolderService {
 
     public PolicyHolder updatePolicyStatus(Long id, PolicyHolder.PolicyStatus status) {
         PolicyHolder policyHolder = getPolicyHolderById(id);
+        PolicyHolder.PolicyStatus previousStatus = policyHolder.getStatus();
         policyHolder.setStatus(status);
-        return policyHolderRepository.save(policyHolder);
+        PolicyHolder updatedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, policyHolder.getPolicy(), updatedPolicyHolder);
+        return updatedPolicyHolder;
     }
 
     /**
@@ -173,10 +203,12 @@ public class PolicyHolderService {
             throw new IllegalStateException("Policy is not active. Current status: " + policyHolder.getStatus());
         }
         
+        PolicyHolder.PolicyStatus previousStatus = policyHolder.getStatus();
         // Update status to CANCELLED
         policyHolder.setStatus(PolicyHolder.PolicyStatus.CANCELLED);
         policyHolder.setUpdatedAt(LocalDate.now().atStartOfDay());
         PolicyHolder updatedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, policyHolder.getPolicy(), updatedPolicyHolder);
         
         // Log the deactivation action
         auditLogService.logAction(
@@ -191,36 +223,6 @@ public class PolicyHolderService {
         return updatedPolicyHolder;
     }
 
-    /**
-     * Deactivate all expired policies
-     */
-    public List<PolicyHolder> deactivateExpiredPolicies(String performedBy) {
-        List<PolicyHolder> activePolicyHolders = policyHolderRepository.findByStatus(PolicyHolder.PolicyStatus.ACTIVE);
-        List<PolicyHolder> expiredPolicies = new java.util.ArrayList<>();
-        LocalDate today = LocalDate.now();
-        
-        for (PolicyHolder policyHolder : activePolicyHolders) {
-            if (policyHolder.getEndDate().isBefore(today) || policyHolder.getEndDate().isEqual(today)) {
-                policyHolder.setStatus(PolicyHolder.PolicyStatus.EXPIRED);
-                policyHolder.setUpdatedAt(LocalDate.now().atStartOfDay());
-                PolicyHolder updated = policyHolderRepository.save(policyHolder);
-                expiredPolicies.add(updated);
-                
-                // Log the expiration
-                auditLogService.logAction(
-                    com.virul.medisure.model.AuditLog.EntityType.POLICY_HOLDER,
-                    policyHolder.getId(),
-                    com.virul.medisure.model.AuditLog.Action.UPDATE,
-                    performedBy,
-                    "Policy automatically expired. End date: " + policyHolder.getEndDate() + 
-                    POLICY_SUFFIX + policyHolder.getPolicy().getName()
-                );
-            }
-        }
-        
-        return expiredPolicies;
-    }
-
     /**
      * Suspend a policy holder's policy (temporary deactivation)
      */
@@ -231,9 +233,11 @@ public class PolicyHolderService {
             throw new IllegalStateException("Only active policies can be suspended. Current status: " + policyHolder.getStatus());
         }
         
+        PolicyHolder.PolicyStatus previousStatus = policyHolder.getStatus();
         policyHolder.setStatus(PolicyHolder.PolicyStatus.SUSPENDED);
         policyHolder.setUpdatedAt(LocalDate.now().atStartOfDay());
         PolicyHolder updatedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, policyHolder.getPolicy(), updatedPolicyHolder);
         
         // Log the suspension
         auditLogService.logAction(
@@ -263,9 +267,11 @@ public class PolicyHolderService {
             throw new IllegalStateException("Cannot reactivate an expired policy. End date was: " + policyHolder.getEndDate());
         }
         
+        PolicyHolder.PolicyStatus previousStatus = policyHolder.getStatus();
         policyHolder.setStatus(PolicyHolder.PolicyStatus.ACTIVE);
         policyHolder.setUpdatedAt(LocalDate.now().atStartOfDay());
         PolicyHolder updatedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, policyHolder.getPolicy(), updatedPolicyHolder);
         
         // Log the reactivation
         auditLogService.logAction(
@@ -283,17 +289,20 @@ public class PolicyHolderService {
      * Get count of active policies
      */
     public long getActivePolicyCount() {
-        return policyHolderRepository.findByStatus(PolicyHolder.PolicyStatus.ACTIVE).size();
+        return policyHolderRepository.countByStatus(PolicyHolder.PolicyStatus.ACTIVE);
     }
 
     /**
-     * Get count of policies by status
+     * Get count of policies by status, computed with a single GROUP BY query.
+     * Statuses with no policy holders are reported as 0.
      */
     public Map<PolicyHolder.PolicyStatus, Long> getPolicyCountByStatus() {
         Map<PolicyHolder.PolicyStatus, Long> counts = new EnumMap<>(PolicyHolder.PolicyStatus.class);
         for (PolicyHolder.PolicyStatus status : PolicyHolder.PolicyStatus.values()) {
-            long count = policyHolderRepository.findByStatus(status).size();
-            counts.put(status, count);
+            counts.put(status, 0L);
+        }
+        for (Object[] row : policyHolderRepository.countGroupedByStatus()) {
+            counts.put((PolicyHolder.PolicyStatus) row[0], (Long) row[1]);
         }
         return counts;
     }
@@ -312,6 +321,7 @@ public class PolicyHolderService {
             throw new IllegalStateException("Policy has already been approved by Policy Manager");
         }
         
+        PolicyHolder.PolicyStatus previousStatus = policyHolder.getStatus();
         policyHolder.setPolicyManagerApproved(true);
         policyHolder.setPolicyManagerApprovedBy(approvedBy);
         policyHolder.setPolicyManagerApprovedAt(LocalDate.now().atStartOfDay());
@@ -323,6 +333,7 @@ public class PolicyHolderService {
         }
         
         PolicyHolder updatedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, policyHolder.getPolicy(), updatedPolicyHolder);
         
         // Log the approval
         auditLogService.logAction(
@@ -350,6 +361,7 @@ public class PolicyHolderService {
             throw new IllegalStateException("Policy has already been approved by Finance Officer");
         }
         
+        PolicyHolder.PolicyStatus previousStatus = policyHolder.getStatus();
         policyHolder.setFinanceOfficerApproved(true);
         policyHolder.setFinanceOfficerApprovedBy(approvedBy);
         policyHolder.setFinanceOfficerApprovedAt(LocalDate.now().atStartOfDay());
@@ -361,6 +373,7 @@ public class PolicyHolderService {
         }
         
         PolicyHolder updatedPolicyHolder = policyHolderRepository.save(policyHolder);
+        dashboardStatsService.recordPolicyHolderChange(previousStatus, policyHolder.getPolicy(), updatedPolicyHolder);
         
         // Log the approval
         auditLogService.logAction(
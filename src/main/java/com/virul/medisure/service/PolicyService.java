@@ -1,10 +1,16 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.config.CacheConfig;
 import com.virul.medisure.dto.PolicyRequest;
 import com.virul.medisure.model.Policy;
 import com.virul.medisure.repository.PolicyRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -13,11 +19,16 @@ import java.util.List;
 public class PolicyService {
 
     private final PolicyRepository policyRepository;
+    private final DashboardStatsService dashboardStatsService;
+    private final FragmentCache fragmentCache;
+    private final CacheManager cacheManager;
 
+    @Cacheable(cacheNames = CacheConfig.POLICIES, key = "'all'")
     public List<Policy> getAllPolicies() {
         return policyRepository.findAll();
     }
 
+    @Cacheable(cacheNames = CacheConfig.POLICIES, key = "'active'")
     public List<Policy> getActivePolicies() {
         return policyRepository.findByIsActiveTrue();
     }
@@ -41,7 +52,9 @@ public class PolicyService {
         policy.setDescription(request.getDescription());
         policy.setIsActive(true);
 
-        return policyRepository.save(policy);
+        Policy savedPolicy = policyRepository.save(policy);
+        policiesChanged();
+        return savedPolicy;
     }
 
     public Policy updatePolicy(Long id, PolicyRequest request) {
@@ -53,18 +66,51 @@ public class PolicyService {
         policy.setDurationMonths(request.getDurationMonths());
         policy.setDescription(request.getDescription());
 
-        return policyRepository.save(policy);
+        Policy updatedPolicy = policyRepository.save(policy);
+        policiesChanged();
+        // Premium changes affect the active premium total on the agent dashboard
+        dashboardStatsService.invalidatePolicyHolderCounters();
+        return updatedPolicy;
     }
 
     public void deletePolicy(Long id) {
         Policy policy = getPolicyById(id);
         policy.setIsActive(false);
         policyRepository.save(policy);
+        policiesChanged();
     }
 
     public Policy activatePolicy(Long id) {
         Policy policy = getPolicyById(id);
         policy.setIsActive(true);
-        return policyRepository.save(policy);
+        Policy savedPolicy = policyRepository.save(policy);
+        policiesChanged();
+        return savedPolicy;
+    }
+
+    /**
+     * Drop the cached policy lists and then the active policies fragment, once the change is committed.
+     * The order matters: a fragment rendered between the two would otherwise be built from the old
+     * cached list and served until its TTL runs out.
+     */
+    private void policiesChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictPolicies();
+                }
+            });
+        } else {
+            evictPolicies();
+        }
+    }
+
+    private void evictPolicies() {
+        Cache policies = cacheManager.getCache(CacheConfig.POLICIES);
+        if (policies != null) {
+            policies.clear();
+        }
+        fragmentCache.invalidate(FragmentCache.ACTIVE_POLICIES);
     }
 }
@@ -0,0 +1,49 @@
+package com.virul.medisure.service;
+
+import com.virul.medisure.model.Payment;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a payment provider. Answers after a fixed latency without holding a
+ * thread while waiting, and declines the configured fraction of charges. The decision is derived
+ * from the transaction id, so resubmitting a payment gets the same answer, as it would from a
+ * provider keyed on an idempotency key.
+ */
+@Component
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-gateway-sim");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${payment.gateway.simulated.latency-ms:500}")
+    private long latencyMs;
+
+    @Value("${payment.gateway.simulated.failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public CompletableFuture<ChargeResult> charge(Payment payment) {
+        CompletableFuture<ChargeResult> result = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            boolean approved = new SplittableRandom(payment.getTransactionId().hashCode()).nextDouble() >= failureRate;
+            result.complete(new ChargeResult(approved, approved ? "Approved" : "Declined by simulated gateway"));
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+}
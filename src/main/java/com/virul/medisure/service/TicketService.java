@@ -1,5 +1,6 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.dto.CursorPage;
 import com.virul.medisure.dto.TicketRequest;
 import com.virul.medisure.dto.TicketResponse;
 import com.virul.medisure.dto.TicketCommentResponse;
@@ -9,16 +10,22 @@ import com.virul.medisure.model.User;
 import com.virul.medisure.repository.TicketRepository;
 import com.virul.medisure.repository.TicketCommentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TicketService {
     
+    private static final int COMMENT_QUERY_IDS = 1000;
+    
     private final TicketRepository ticketRepository;
     private final TicketCommentRepository ticketCommentRepository;
     
@@ -37,33 +44,54 @@ public class TicketService {
     }
     
     public List<TicketResponse> getUserTickets(User user) {
-        List<Ticket> tickets = ticketRepository.findByUserOrderByCreatedAtDesc(user);
-        return tickets.stream()
-                .map(ticket -> {
-                    TicketResponse response = new TicketResponse(ticket);
-                    response.setComments(getTicketComments(ticket.getId()));
-                    return response;
-                })
-                .collect(Collectors.toList());
+        return toResponses(ticketRepository.findByUserOrderByCreatedAtDesc(user));
     }
     
     public List<TicketResponse> getAssignedTickets(User user) {
-        List<Ticket> tickets = ticketRepository.findByAssignedToOrderByCreatedAtDesc(user);
-        return tickets.stream()
-                .map(ticket -> {
-                    TicketResponse response = new TicketResponse(ticket);
-                    response.setComments(getTicketComments(ticket.getId()));
-                    return response;
-                })
-                .collect(Collectors.toList());
+        return toResponses(ticketRepository.findByAssignedToOrderByCreatedAtDesc(user));
     }
     
     public List<TicketResponse> getAllTickets() {
-        List<Ticket> tickets = ticketRepository.findAll();
+        return toResponses(ticketRepository.findAllWithUsers());
+    }
+    
+    /**
+     * Keyset page of all tickets ordered by id, starting after the given id
+     */
+    public CursorPage<TicketResponse> getTicketsPage(Long after, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        List<Ticket> rows = ticketRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), Limit.of(pageSize + 1));
+        CursorPage<Ticket> page = CursorPage.of(rows, pageSize, Ticket::getId);
+        return new CursorPage<>(toResponses(page.getItems()), page.getNextCursor(), page.getSize());
+    }
+    
+    public List<TicketResponse> getTicketResponsesAfter(Long afterId, int limit) {
+        return toResponses(ticketRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)));
+    }
+    
+    /**
+     * Map tickets to responses, loading the public comments with one query per
+     * {@value #COMMENT_QUERY_IDS} tickets, which keeps the IN list within the driver's bind limit
+     */
+    private List<TicketResponse> toResponses(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> ticketIds = tickets.stream().map(Ticket::getId).collect(Collectors.toList());
+        Map<Long, List<TicketCommentResponse>> commentsByTicket = new HashMap<>();
+        for (int from = 0; from < ticketIds.size(); from += COMMENT_QUERY_IDS) {
+            List<Long> chunk = ticketIds.subList(from, Math.min(from + COMMENT_QUERY_IDS, ticketIds.size()));
+            for (TicketComment comment : ticketCommentRepository.findPublicByTicketIdIn(chunk)) {
+                commentsByTicket.computeIfAbsent(comment.getTicket().getId(), id -> new ArrayList<>())
+                        .add(new TicketCommentResponse(comment));
+            }
+        }
+        
         return tickets.stream()
                 .map(ticket -> {
                     TicketResponse response = new TicketResponse(ticket);
-                    response.setComments(getTicketComments(ticket.getId()));
+                    response.setComments(commentsByTicket.getOrDefault(ticket.getId(), new ArrayList<>()));
                     return response;
                 })
                 .collect(Collectors.toList());
@@ -78,9 +106,7 @@ public class TicketService {
         ticket.setUpdatedAt(LocalDateTime.now());
         
         Ticket savedTicket = ticketRepository.save(ticket);
-        TicketResponse response = new TicketResponse(savedTicket);
-        response.setComments(getTicketComments(ticketId));
-        return response;
+        return toResponses(List.of(savedTicket)).get(0);
     }
     
     public TicketResponse updateTicketStatus(Long ticketId, Ticket.TicketStatus status, User user) {
@@ -95,9 +121,7 @@ public class TicketService {
         }
         
         Ticket savedTicket = ticketRepository.save(ticket);
-        TicketResponse response = new TicketResponse(savedTicket);
-        response.setComments(getTicketComments(ticketId));
-        return response;
+        return toResponses(List.of(savedTicket)).get(0);
     }
     
     public TicketCommentResponse addComment(Long ticketId, String comment, User user, boolean isInternal) {
@@ -116,10 +140,11 @@ public class TicketService {
     }
     
     public List<TicketCommentResponse> getTicketComments(Long ticketId) {
-        Ticket ticket = ticketRepository.findById(ticketId)
-                .orElseThrow(() -> new RuntimeException("Ticket not found"));
+        if (!ticketRepository.existsById(ticketId)) {
+            throw new RuntimeException("Ticket not found");
+        }
         
-        List<TicketComment> comments = ticketCommentRepository.findByTicketAndIsInternalOrderByCreatedAtAsc(ticket, false);
+        List<TicketComment> comments = ticketCommentRepository.findPublicByTicketIdIn(List.of(ticketId));
         return comments.stream()
                 .map(TicketCommentResponse::new)
                 .collect(Collectors.toList());
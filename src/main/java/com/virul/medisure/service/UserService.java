@@ -1,9 +1,12 @@
 package com.virul.medisure.service;
 
+import com.virul.medisure.config.CacheConfig;
 import com.virul.medisure.dto.RegisterRequest;
 import com.virul.medisure.model.User;
 import com.virul.medisure.repository.UserRepository;
+import com.virul.medisure.security.JwtTokenCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -19,6 +22,7 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final JwtTokenCache jwtTokenCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -106,6 +110,8 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + id));
     }
 
+    // The doctor directory cache holds each doctor's user
+    @CacheEvict(cacheNames = CacheConfig.DOCTORS, allEntries = true)
     public User updateUser(Long id, String fullName, String email, String phone, User.UserRole role) {
         // Validate inputs
         if (fullName == null || fullName.trim().isEmpty()) {
@@ -147,9 +153,12 @@ public class UserService implements UserDetailsService {
         user.setRole(role);
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        jwtTokenCache.evictUser(id);
+        return savedUser;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.DOCTORS, allEntries = true)
     public void deleteUser(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("User ID cannot be null");
@@ -170,12 +179,14 @@ public class UserService implements UserDetailsService {
         }
         
         userRepository.delete(user);
+        jwtTokenCache.evictUser(id);
     }
 
     public void changeUserRole(Long userId, User.UserRole newRole) {
         User user = getUserById(userId);
         user.setRole(newRole);
         userRepository.save(user);
+        jwtTokenCache.evictUser(userId);
     }
     
     public List<User> searchUsers(String query, User.UserRole role) {
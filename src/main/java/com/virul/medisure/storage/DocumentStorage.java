@@ -0,0 +1,73 @@
+package com.virul.medisure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where document files live. Keys are '/'-separated relative paths such as
+ * "uploads/claim-documents/3f2a....pdf"; they are what document rows store as fileUrl.
+ * Implementations never expose a partially written object under its key.
+ */
+public interface DocumentStorage {
+
+    /**
+     * Store the stream under the key, replacing any existing object. contentLength may be -1
+     * when unknown. The stream is read to the end but not closed.
+     */
+    void put(String key, InputStream content, long contentLength, String contentType) throws IOException;
+
+    /**
+     * Open the object for reading; fails with NoSuchFileException if it does not exist
+     */
+    InputStream open(String key) throws IOException;
+
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /**
+     * Delete the object if it exists
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Rename an object, replacing the target. The default copies and deletes; implementations
+     * that can rename in place should.
+     */
+    default void move(String sourceKey, String targetKey) throws IOException {
+        ObjectInfo info = stat(sourceKey).orElseThrow(() -> new NoSuchFileException(sourceKey));
+        try (InputStream in = open(sourceKey)) {
+            put(targetKey, in, info.size(), null);
+        }
+        delete(sourceKey);
+    }
+
+    /**
+     * Objects whose key starts with the prefix. The stream must be closed.
+     */
+    Stream<ObjectInfo> list(String prefix) throws IOException;
+
+    /**
+     * The object as a file on this machine, when the storage has one; lets downloads use sendfile
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * A short-lived URL the client can download the object from directly, when supported
+     */
+    default Optional<URI> presignedDownloadUrl(String key, String fileName, String contentType) {
+        return Optional.empty();
+    }
+
+    record ObjectInfo(String key, long size, long lastModified) {
+    }
+}
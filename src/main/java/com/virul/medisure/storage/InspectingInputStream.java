@@ -0,0 +1,137 @@
+package com.virul.medisure.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Passes a stream through while counting its bytes and hashing them with SHA-256, so an
+ * upload is inspected in the same pass that stores it. The content type is detected from
+ * the first few bytes, read ahead before the stream is consumed.
+ */
+public class InspectingInputStream extends FilterInputStream {
+
+    private static final int HEAD_SIZE = 16;
+
+    private final MessageDigest digest;
+    private long size;
+
+    public InspectingInputStream(InputStream in) {
+        // Room to put the leading bytes back after peeking at them
+        super(new PushbackInputStream(in, HEAD_SIZE));
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            inspect(new byte[]{(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = in.read(buffer, offset, length);
+        if (read > 0) {
+            inspect(buffer, offset, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes would be missing from the hash
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        int read = read(buffer, 0, buffer.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void inspect(byte[] buffer, int offset, int length) {
+        digest.update(buffer, offset, length);
+        size += length;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * SHA-256 of everything read so far as lower-case hex; call once the stream is exhausted
+     */
+    public String getChecksum() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The content type recognised from the leading bytes, or the declared type when the format
+     * has no signature we know. A declared type that contradicts a recognised signature is
+     * not trusted. Call before reading: the leading bytes are read ahead and put back.
+     */
+    public String peekContentType(String declaredContentType) throws IOException {
+        PushbackInputStream pushback = (PushbackInputStream) in;
+        byte[] bytes = pushback.readNBytes(HEAD_SIZE);
+        pushback.unread(bytes);
+        return sniff(bytes, declaredContentType);
+    }
+
+    private static String sniff(byte[] bytes, String declaredContentType) {
+        if (startsWith(bytes, "%PDF-".getBytes(StandardCharsets.US_ASCII))) {
+            return "application/pdf";
+        }
+        if (startsWith(bytes, new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})) {
+            return "image/png";
+        }
+        if (startsWith(bytes, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF})) {
+            return "image/jpeg";
+        }
+        if (startsWith(bytes, "GIF87a".getBytes(StandardCharsets.US_ASCII))
+                || startsWith(bytes, "GIF89a".getBytes(StandardCharsets.US_ASCII))) {
+            return "image/gif";
+        }
+        if (startsWith(bytes, new byte[]{'I', 'I', 0x2A, 0x00}) || startsWith(bytes, new byte[]{'M', 'M', 0x00, 0x2A})) {
+            return "image/tiff";
+        }
+        if (bytes.length >= 12 && startsWith(bytes, "RIFF".getBytes(StandardCharsets.US_ASCII))
+                && new String(bytes, 8, 4, StandardCharsets.US_ASCII).equals("WEBP")) {
+            return "image/webp";
+        }
+        if (startsWith(bytes, new byte[]{'P', 'K', 0x03, 0x04})) {
+            // Office documents are zip files; keep the declared OOXML type if there is one
+            return declaredContentType != null && declaredContentType.startsWith("application/vnd.openxmlformats")
+                    ? declaredContentType : "application/zip";
+        }
+        if (declaredContentType == null || declaredContentType.isBlank()
+                || isSignedType(declaredContentType)) {
+            return "application/octet-stream";
+        }
+        return declaredContentType;
+    }
+
+    private static boolean isSignedType(String contentType) {
+        return contentType.equals("application/pdf") || contentType.startsWith("image/png")
+                || contentType.startsWith("image/jpeg") || contentType.startsWith("image/gif")
+                || contentType.startsWith("image/tiff") || contentType.startsWith("image/webp")
+                || contentType.equals("application/zip");
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        return bytes.length >= prefix.length && Arrays.equals(bytes, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
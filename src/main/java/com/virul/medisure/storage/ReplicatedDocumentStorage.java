@@ -0,0 +1,162 @@
+package com.virul.medisure.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes to a primary storage and copies every change to a replica in the background.
+ * Reads are served by the primary; an object the primary has lost is read from the replica.
+ * Replication is best effort: a failed copy is logged and not retried.
+ * Copies run on a fixed set of single-threaded lanes, and every change to a key goes to the lane
+ * picked by the key's hash, so the replica applies the changes to one key in the order the
+ * primary saw them.
+ */
+@Slf4j
+public class ReplicatedDocumentStorage implements DocumentStorage, AutoCloseable {
+
+    private final DocumentStorage primary;
+    private final DocumentStorage replica;
+    private final ThreadPoolExecutor[] lanes;
+
+    public ReplicatedDocumentStorage(DocumentStorage primary, DocumentStorage replica, int threads,
+                                     int queueCapacity) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lanes = new ThreadPoolExecutor[Math.max(1, threads)];
+        int laneCapacity = Math.max(1, queueCapacity / lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = "storage-replicator-" + (i + 1);
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    // A full lane slows writers down instead of dropping replicas. Running the copy on
+                    // the caller would let it overtake changes to the same key still in the queue.
+                    (runnable, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Replicator is shut down");
+                        }
+                        try {
+                            executor.getQueue().put(runnable);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting to replicate", e);
+                        }
+                    });
+        }
+    }
+
+    private ThreadPoolExecutor lane(String key) {
+        return lanes[Math.floorMod(key.hashCode(), lanes.length)];
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType) throws IOException {
+        primary.put(key, content, contentLength, contentType);
+        lane(key).execute(() -> {
+            try (InputStream stored = primary.open(key)) {
+                replica.put(key, stored, contentLength, contentType);
+            } catch (NoSuchFileException e) {
+                // Deleted again before it was copied
+            } catch (IOException e) {
+                log.warn("Failed to replicate {}: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return primary.open(key);
+        } catch (NoSuchFileException e) {
+            log.warn("{} missing from primary storage, reading replica", key);
+            return replica.open(key);
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        Optional<ObjectInfo> info = primary.stat(key);
+        return info.isPresent() ? info : replica.stat(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        primary.delete(key);
+        lane(key).execute(() -> {
+            try {
+                replica.delete(key);
+            } catch (IOException e) {
+                log.warn("Failed to delete replica of {}: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        primary.move(sourceKey, targetKey);
+        // Each half goes to its own key's lane, after any earlier change to that key
+        lane(targetKey).execute(() -> {
+            // The source may not have reached the replica yet, so copy the target afresh
+            try (InputStream stored = primary.open(targetKey)) {
+                replica.put(targetKey, stored, -1, null);
+            } catch (NoSuchFileException e) {
+                // Deleted again before it was copied
+            } catch (IOException e) {
+                log.warn("Failed to replicate move of {} to {}: {}", sourceKey, targetKey, e.getMessage());
+            }
+        });
+        lane(sourceKey).execute(() -> {
+            try {
+                replica.delete(sourceKey);
+            } catch (IOException e) {
+                log.warn("Failed to delete replica of moved {}: {}", sourceKey, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public Stream<ObjectInfo> list(String prefix) throws IOException {
+        return primary.list(prefix);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return primary.localPath(key);
+    }
+
+    @Override
+    public Optional<URI> presignedDownloadUrl(String key, String fileName, String contentType) {
+        return primary.presignedDownloadUrl(key, fileName, contentType);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        if (replica instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.virul.medisure.storage;
+
+import org.springframework.http.ContentDisposition;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Documents as objects in an S3-compatible bucket (AWS S3, MinIO and similar).
+ * Uploads larger than one part are sent as a multipart upload, so only one part is held in
+ * memory whatever the file size. Downloads can be handed to the client as presigned URLs.
+ */
+public class S3DocumentStorage implements DocumentStorage, AutoCloseable {
+
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final int partSize;
+    private final Duration presignTtl;
+
+    public S3DocumentStorage(S3Client client, S3Presigner presigner, String bucket, int partSize,
+                             Duration presignTtl) {
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.presignTtl = presignTtl;
+    }
+
+    /**
+     * Create the bucket if it does not exist yet, e.g. on a fresh local stand-in
+     */
+    public void createBucketIfMissing() throws IOException {
+        try {
+            client.headBucket(request -> request.bucket(bucket));
+        } catch (NoSuchBucketException e) {
+            try {
+                client.createBucket(request -> request.bucket(bucket));
+            } catch (SdkException createFailed) {
+                throw new IOException("Could not create bucket " + bucket, createFailed);
+            }
+        } catch (SdkException e) {
+            throw new IOException("Could not reach bucket " + bucket, e);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType) throws IOException {
+        byte[] part = content.readNBytes(partSize);
+        try {
+            if (part.length < partSize) {
+                client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(part), part.length));
+                return;
+            }
+            putMultipart(key, part, content, contentType);
+        } catch (SdkException e) {
+            throw new IOException("Failed to upload " + key, e);
+        }
+    }
+
+    private void putMultipart(String key, byte[] firstPart, InputStream content, String contentType)
+            throws IOException {
+        String uploadId = client.createMultipartUpload(request -> request.bucket(bucket).key(key)
+                .contentType(contentType)).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] part = firstPart;
+            while (part.length > 0) {
+                int partNumber = parts.size() + 1;
+                byte[] body = part;
+                UploadPartResponse response = client.uploadPart(request -> request.bucket(bucket).key(key)
+                                .uploadId(uploadId).partNumber(partNumber).contentLength((long) body.length),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(body), body.length));
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+                part = content.readNBytes(partSize);
+            }
+            client.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+        } catch (IOException | SdkException e) {
+            // Otherwise the uploaded parts are kept (and billed) until a lifecycle rule removes them
+            try {
+                client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            } catch (SdkException abortFailed) {
+                e.addSuppressed(abortFailed);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return client.getObject(request -> request.bucket(bucket).key(key));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new ObjectInfo(key, head.contentLength(), head.lastModified().toEpochMilli()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            // HEAD responses have no body, so a missing key may surface only as a 404
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Failed to read " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Failed to read " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Failed to delete " + key, e);
+        }
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        try {
+            // Server-side copy; objects over 5 GB would need a multipart copy
+            client.copyObject(request -> request.sourceBucket(bucket).sourceKey(sourceKey)
+                    .destinationBucket(bucket).destinationKey(targetKey));
+            client.deleteObject(request -> request.bucket(bucket).key(sourceKey));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(sourceKey);
+        } catch (SdkException e) {
+            throw new IOException("Failed to move " + sourceKey + " to " + targetKey, e);
+        }
+    }
+
+    @Override
+    public Stream<ObjectInfo> list(String prefix) throws IOException {
+        try {
+            return client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                    .contents()
+                    .stream()
+                    .map(object -> new ObjectInfo(object.key(), object.size(), object.lastModified().toEpochMilli()));
+        } catch (SdkException e) {
+            throw new IOException("Failed to list " + prefix, e);
+        }
+    }
+
+    @Override
+    public Optional<URI> presignedDownloadUrl(String key, String fileName, String contentType) {
+        String disposition = ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build()
+                .toString();
+        try {
+            return Optional.of(presigner.presignGetObject(presign -> presign
+                    .signatureDuration(presignTtl)
+                    .getObjectRequest(request -> request.bucket(bucket).key(key)
+                            .responseContentType(contentType)
+                            .responseContentDisposition(disposition)))
+                    .url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        client.close();
+    }
+}
@@ -194,6 +194,67 @@
         });
     }
 
+    // ==========================================
+    // Appointment Slot Picker
+    // ==========================================
+
+    /**
+     * Fill appointment time selects with the doctor's free slots on the chosen date.
+     * The select names its doctor and date inputs in data-doctor and data-date; a time in
+     * data-selected (an existing booking) stays selectable for its own doctor and date.
+     */
+    function initSlotPickers() {
+        document.querySelectorAll('select[data-slot-picker]').forEach(select => {
+            const doctorInput = document.getElementById(select.dataset.doctor);
+            const dateInput = document.getElementById(select.dataset.date);
+            const initial = {
+                doctor: doctorInput.value,
+                date: dateInput.value,
+                time: select.dataset.selected || ''
+            };
+
+            function setOptions(times, message) {
+                select.innerHTML = '';
+                if (times.length === 0) {
+                    select.add(new Option(message, '', true, true));
+                    select.options[0].disabled = true;
+                    return;
+                }
+                times.forEach(time => select.add(new Option(time, time, false, time === initial.time)));
+            }
+
+            async function loadSlots() {
+                const doctor = doctorInput.value;
+                const date = dateInput.value;
+                if (!doctor || !date) {
+                    setOptions([], 'Choose a doctor and date first');
+                    return;
+                }
+                setOptions([], 'Loading free times...');
+                try {
+                    const response = await fetch(`/api/appointments/doctors/${encodeURIComponent(doctor)}/free-slots?date=${encodeURIComponent(date)}`);
+                    const result = await response.json();
+                    if (result.status !== 'success') {
+                        throw new Error(result.message || 'Failed to load free times');
+                    }
+                    const times = result.data.map(time => time.substring(0, 5));
+                    if (initial.time && doctor === initial.doctor && date === initial.date && !times.includes(initial.time)) {
+                        times.push(initial.time);
+                        times.sort();
+                    }
+                    setOptions(times, 'No free times on this day');
+                } catch (error) {
+                    console.error('Error loading free times:', error);
+                    setOptions([], 'Could not load free times');
+                }
+            }
+
+            doctorInput.addEventListener('change', loadSlots);
+            dateInput.addEventListener('change', loadSlots);
+            loadSlots();
+        });
+    }
+
     // ==========================================
     // Table Enhancements
     // ==========================================
@@ -370,6 +431,7 @@
         initFormValidation();
         initSessionTimeout();
         initFileUploadPreviews();
+        initSlotPickers();
         initTableSelection();
         initKeyboardShortcuts();
         initAutoSave();